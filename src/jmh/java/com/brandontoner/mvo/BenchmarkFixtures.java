@@ -0,0 +1,99 @@
+package com.brandontoner.mvo;
+
+import java.util.Random;
+
+/**
+ * Deterministic inputs shared by the benchmarks, so results are comparable between runs and versions.
+ */
+final class BenchmarkFixtures {
+    /** Seed of every fixture. */
+    static final long SEED = 42;
+    /** Number of units distributed among the tickers of a portfolio, as in a default run. */
+    static final int UNITS = 1000;
+
+    private BenchmarkFixtures() {
+        // noop
+    }
+
+    /**
+     * Creates tickers whose prices follow independent random walks over consecutive days, stored in a single price
+     * matrix as {@link FileTickerProvider} does.
+     *
+     * @param tickerCount number of tickers
+     * @param dayCount    number of days
+     * @return tickers sorted by name
+     */
+    static Ticker[] tickers(int tickerCount, int dayCount) {
+        Random random = new Random(SEED);
+        int[] epochDays = new int[dayCount];
+        for (int day = 0; day < dayCount; day++) {
+            epochDays[day] = day;
+        }
+        PriceMatrix priceMatrix = new PriceMatrix(tickerCount, dayCount);
+        Ticker[] tickers = new Ticker[tickerCount];
+        for (int row = 0; row < tickerCount; row++) {
+            double[] prices = new double[dayCount];
+            double price = 10 + random.nextDouble() * 90;
+            for (int day = 0; day < dayCount; day++) {
+                price *= 1 + random.nextGaussian() * 0.02;
+                prices[day] = price;
+            }
+            priceMatrix.setRow(row, prices);
+            tickers[row] = new Ticker("T%05d".formatted(row), epochDays, priceMatrix, row);
+        }
+        return tickers;
+    }
+
+    /**
+     * Creates random count vectors of {@link #UNITS} units.
+     *
+     * @param tickerCount number of tickers
+     * @param count       number of count vectors
+     * @param random      source of randomness
+     * @return count vectors
+     */
+    static int[][] counts(int tickerCount, int count, Random random) {
+        int[][] counts = new int[count][tickerCount];
+        for (int[] vector : counts) {
+            for (int unit = 0; unit < UNITS; unit++) {
+                vector[random.nextInt(tickerCount)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Creates evaluated random portfolios.
+     *
+     * @param tickers tickers
+     * @param count   number of portfolios
+     * @return portfolios, in no particular order
+     */
+    static Portfolio[] portfolios(Ticker[] tickers, int count) {
+        Portfolio[] portfolios = new Portfolio[count];
+        int[][] counts = counts(tickers.length, count, new Random(SEED));
+        for (int i = 0; i < count; i++) {
+            portfolios[i] = PortfolioFactory.get(tickers, counts[i]);
+        }
+        return portfolios;
+    }
+
+    /**
+     * Creates a frontier of the given size. Means and variances are synthetic, strictly increasing together so no
+     * portfolio dominates another, evaluating real portfolios until a frontier that large emerges would take minutes.
+     *
+     * @param tickers tickers
+     * @param size    number of portfolios
+     * @param offset  added to every mean, frontiers with different offsets interleave
+     * @return frontier
+     */
+    static MeanVarianceSet frontier(Ticker[] tickers, int size, double offset) {
+        Random random = new Random(SEED);
+        int[][] counts = counts(tickers.length, size, random);
+        MeanVarianceSet frontier = new MeanVarianceSet();
+        for (int i = 0; i < size; i++) {
+            frontier.add(new Portfolio(tickers, counts[i], i + offset, i + random.nextDouble()));
+        }
+        return frontier;
+    }
+}
@@ -0,0 +1,34 @@
+package com.brandontoner.mvo;
+
+import java.io.IOException;
+import java.io.Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Formatting the frontier as CSV, written to a writer which discards it so disk speed does not matter.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class CsvBenchmark {
+    private static final int DAY_COUNT = 250;
+    @Param({"50", "500"})
+    int tickerCount;
+    @Param({"1000", "50000"})
+    int frontierSize;
+    private MeanVarianceSet frontier;
+
+    @Setup
+    public void setUp() {
+        frontier = BenchmarkFixtures.frontier(BenchmarkFixtures.tickers(tickerCount, DAY_COUNT), frontierSize, 0);
+    }
+
+    @Benchmark
+    public void writeCsv() throws IOException {
+        Csv.writeCsv(frontier, Writer.nullWriter());
+    }
+}
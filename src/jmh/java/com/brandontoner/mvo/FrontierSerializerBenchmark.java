@@ -0,0 +1,91 @@
+package com.brandontoner.mvo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import software.amazon.ion.IonSystem;
+import software.amazon.ion.system.IonSystemBuilder;
+
+/**
+ * Full snapshot writes and loads of the frontier cache in both formats. Loads reuse the stored statistics, the
+ * tickers are unchanged.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class FrontierSerializerBenchmark {
+    private static final int DAY_COUNT = 250;
+    private final IonSystem ionSystem = IonSystemBuilder.standard().build();
+    @Param({"50", "500"})
+    int tickerCount;
+    @Param({"1000", "50000"})
+    int frontierSize;
+    private Ticker[] tickers;
+    private MeanVarianceSet frontier;
+    private Path writeDir;
+    private Path loadDir;
+
+    /**
+     * Creates the frontier and writes it in both formats for the loads to read.
+     *
+     * @throws IOException on error writing
+     */
+    @Setup
+    public void setUp() throws IOException {
+        tickers = BenchmarkFixtures.tickers(tickerCount, DAY_COUNT);
+        frontier = BenchmarkFixtures.frontier(tickers, frontierSize, 0);
+        writeDir = Files.createTempDirectory("mvo-benchmark");
+        loadDir = Files.createTempDirectory("mvo-benchmark");
+        new IonSerializer(ionSystem, loadDir).writeTo(frontier);
+        new BinaryFrontierSerializer(loadDir).writeTo(frontier);
+    }
+
+    /**
+     * Deletes the files written.
+     *
+     * @throws IOException on error deleting
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path dir : new Path[] {writeDir, loadDir}) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a full Ion snapshot, the first write of a serializer is always one.
+     *
+     * @throws IOException on error writing
+     */
+    @Benchmark
+    public void ionWriteTo() throws IOException {
+        new IonSerializer(ionSystem, writeDir).writeTo(frontier);
+    }
+
+    @Benchmark
+    public MeanVarianceSet ionLoad() {
+        return new IonSerializer(ionSystem, loadDir).load(tickers);
+    }
+
+    @Benchmark
+    public void binaryWriteTo() throws IOException {
+        new BinaryFrontierSerializer(writeDir).writeTo(frontier);
+    }
+
+    @Benchmark
+    public MeanVarianceSet binaryLoad() {
+        return new BinaryFrontierSerializer(loadDir).load(tickers);
+    }
+}
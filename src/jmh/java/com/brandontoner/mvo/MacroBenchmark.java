@@ -0,0 +1,120 @@
+package com.brandontoner.mvo;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the whole optimizer over a synthetic universe and reports how it did, the yardstick for scaling work.
+ * <p>
+ * The seed fixes the universe, see {@link SyntheticMarket}. The search itself is parallel and draws from
+ * {@link java.util.concurrent.ThreadLocalRandom}, so repeated runs differ slightly in time and result, compare the
+ * median of a few. Each run starts from an empty cache in a fresh directory.
+ * </p>
+ * <p>
+ * Reports the time to load the tickers and to converge, evaluations per second, allocation rate while searching, as
+ * counted by live threads, peak heap usage, and the quality of the final frontier: its size, its best ratio of mean
+ * return to standard deviation, and the area it dominates up to the point of its highest variance and lowest mean.
+ * </p>
+ */
+public final class MacroBenchmark {
+    private MacroBenchmark() {
+        // noop
+    }
+
+    /**
+     * Runs the benchmark. Optimizer settings such as {@code -Dmvo.units} and {@code -Dmvo.frontier} apply as usual.
+     *
+     * @param args number of tickers, 100 by default, number of days, 252 by default, and seed, 42 by default
+     * @throws IOException on error writing the universe or the frontier
+     */
+    public static void main(String[] args) throws IOException {
+        int tickerCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int dayCount = args.length > 1 ? Integer.parseInt(args[1]) : 252;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        Path dir = Files.createTempDirectory("mvo-macro");
+        Path csvPath = dir.resolve("csv");
+        SyntheticMarket.write(csvPath, tickerCount, dayCount, seed, LocalDate.now());
+        System.setProperty("mvo.csv", csvPath.toString());
+        System.setProperty("mvo.output", dir.resolve("out").toString());
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                                                            .stream()
+                                                            .filter(pool -> pool.getType() == MemoryType.HEAP)
+                                                            .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long startTimeNs = System.nanoTime();
+        Injector injector = Guice.createInjector(new MvoModule());
+        Optimizer optimizer = injector.getInstance(Optimizer.class);
+        long loadedTimeNs = System.nanoTime();
+        long startAllocatedBytes = Optimizer.allocatedBytes();
+        EfficientFrontier frontier = optimizer.run();
+        long endTimeNs = System.nanoTime();
+        long allocatedBytes = Optimizer.allocatedBytes() - startAllocatedBytes;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        double searchSeconds = (endTimeNs - loadedTimeNs) / 1e9;
+        Map<String, Double> metrics = injector.getInstance(Metrics.class).values();
+        long evaluations = sum(metrics, "mvo_evaluations_total");
+        System.out.printf("tickers:                %d%n", tickerCount);
+        System.out.printf("days:                   %d%n", dayCount);
+        System.out.printf("seed:                   %d%n", seed);
+        System.out.printf("load seconds:           %.3f%n", (loadedTimeNs - startTimeNs) / 1e9);
+        System.out.printf("convergence seconds:    %.3f%n", searchSeconds);
+        System.out.printf("evaluations:            %d%n", evaluations);
+        System.out.printf("evaluations per second: %.0f%n", evaluations / searchSeconds);
+        System.out.printf("screen rejects:         %d%n", sum(metrics, "mvo_screen_rejected_total"));
+        System.out.printf("screen audits:          %d%n", sum(metrics, "mvo_screen_audited_total"));
+        System.out.printf("screen false rejects:   %d%n", sum(metrics, "mvo_screen_false_rejects_total"));
+        System.out.printf("allocated MiB per sec:  %.1f%n", allocatedBytes / (1024.0 * 1024.0) / searchSeconds);
+        System.out.printf("peak heap MiB:          %.1f%n", peakHeap / (1024.0 * 1024.0));
+        System.out.printf("frontier size:          %d%n", frontier.size());
+        System.out.printf("best return / stddev:   %.6f%n", bestSharpeRatio(frontier));
+        System.out.printf("dominated area:         %.6g%n", dominatedArea(frontier));
+    }
+
+    private static long sum(Map<String, Double> values, String name) {
+        return values.entrySet()
+                     .stream()
+                     .filter(entry -> entry.getKey().startsWith(name + "{"))
+                     .mapToLong(entry -> entry.getValue().longValue())
+                     .sum();
+    }
+
+    private static double bestSharpeRatio(EfficientFrontier frontier) {
+        double best = Double.NEGATIVE_INFINITY;
+        for (Portfolio portfolio : frontier) {
+            // means are of day over day value ratios, subtract 1 for the return
+            best = Math.max(best, (portfolio.mean() - 1) / Math.sqrt(portfolio.variance()));
+        }
+        return best;
+    }
+
+    /**
+     * Gets the area of the (variance, mean) plane dominated by the frontier, bounded by its highest variance and its
+     * lowest mean. Grows as the frontier moves up and left.
+     */
+    private static double dominatedArea(EfficientFrontier frontier) {
+        if (frontier.isEmpty()) {
+            return 0;
+        }
+        // ordered by mean, so variance increases too
+        double lowestMean = frontier.get(0).mean();
+        double highestVariance = frontier.get(frontier.size() - 1).variance();
+        double area = 0;
+        for (int i = 0; i < frontier.size(); i++) {
+            Portfolio portfolio = frontier.get(i);
+            double nextVariance = i + 1 < frontier.size() ? frontier.get(i + 1).variance() : highestVariance;
+            area += (nextVariance - portfolio.variance()) * (portfolio.mean() - lowestMean);
+        }
+        return area;
+    }
+}
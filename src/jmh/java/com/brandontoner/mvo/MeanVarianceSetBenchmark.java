@@ -0,0 +1,79 @@
+package com.brandontoner.mvo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Building a frontier one portfolio at a time.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class MeanVarianceSetBenchmark {
+    private static final int TICKER_COUNT = 100;
+    private static final int DAY_COUNT = 250;
+    @Param({"100", "10000"})
+    int frontierSize;
+    @Param
+    InsertionPattern pattern;
+    private Portfolio[] insertions;
+
+    /**
+     * Order portfolios are added in.
+     */
+    public enum InsertionPattern {
+        /** Increasing mean, every add appends. */
+        ASCENDING,
+        /** Decreasing mean, every add inserts at the front. */
+        DESCENDING,
+        /** Random order. */
+        RANDOM,
+        /** Increasing mean and decreasing variance, every add replaces the whole frontier. */
+        IMPROVING
+    }
+
+    /**
+     * Orders the portfolios of a frontier by the insertion pattern.
+     */
+    @Setup
+    public void setUp() {
+        Ticker[] tickers = BenchmarkFixtures.tickers(TICKER_COUNT, DAY_COUNT);
+        MeanVarianceSet frontier = BenchmarkFixtures.frontier(tickers, frontierSize, 0);
+        List<Portfolio> ordered = new ArrayList<>(frontier);
+        switch (pattern) {
+            case ASCENDING -> ordered.sort(Comparator.comparingDouble(Portfolio::mean));
+            case DESCENDING -> ordered.sort(Comparator.comparingDouble(Portfolio::mean).reversed());
+            case RANDOM -> Collections.shuffle(ordered, new Random(BenchmarkFixtures.SEED));
+            case IMPROVING -> {
+                for (int i = 0; i < ordered.size(); i++) {
+                    Portfolio portfolio = ordered.get(i);
+                    ordered.set(i, new Portfolio(tickers, portfolio.counts(), i, frontierSize - i));
+                }
+            }
+            default -> throw new IllegalStateException("Unknown pattern " + pattern);
+        }
+        insertions = ordered.toArray(Portfolio[]::new);
+    }
+
+    /**
+     * Adds the portfolios to an empty frontier.
+     *
+     * @return frontier
+     */
+    @Benchmark
+    public MeanVarianceSet add() {
+        MeanVarianceSet set = new MeanVarianceSet();
+        for (Portfolio portfolio : insertions) {
+            set.add(portfolio);
+        }
+        return set;
+    }
+}
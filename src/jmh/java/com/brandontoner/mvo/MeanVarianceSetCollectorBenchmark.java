@@ -0,0 +1,50 @@
+package com.brandontoner.mvo;
+
+import java.util.function.BinaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Combining the frontiers of two parallel collectors.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class MeanVarianceSetCollectorBenchmark {
+    private static final int TICKER_COUNT = 100;
+    private static final int DAY_COUNT = 250;
+    @Param({"100", "10000"})
+    int frontierSize;
+    private MeanVarianceSet left;
+    private MeanVarianceSet right;
+    private final BinaryOperator<MeanVarianceSet> combiner = new MeanVarianceSetCollector().combiner();
+
+    /**
+     * Creates two frontiers whose means interleave.
+     */
+    @Setup
+    public void setUp() {
+        Ticker[] tickers = BenchmarkFixtures.tickers(TICKER_COUNT, DAY_COUNT);
+        left = BenchmarkFixtures.frontier(tickers, frontierSize, 0);
+        right = BenchmarkFixtures.frontier(tickers, frontierSize, 0.5);
+    }
+
+    /**
+     * Combines two interleaved frontiers. The combiner merges into its left argument, so that is copied first, see
+     * {@link #copy()} for the cost of the copy alone.
+     *
+     * @return combined frontier
+     */
+    @Benchmark
+    public MeanVarianceSet combine() {
+        return combiner.apply(new MeanVarianceSet(left), right);
+    }
+
+    @Benchmark
+    public MeanVarianceSet copy() {
+        return new MeanVarianceSet(left);
+    }
+}
@@ -0,0 +1,76 @@
+package com.brandontoner.mvo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Neighbor generation and evaluation of the random search and the endgame.
+ * <p>
+ * The visited set is shrunk to 16 hashes, otherwise repeatedly expanding the same parents would soon only measure
+ * visited set hits.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Dmvo.visited.bits=4")
+public class OptimizerBenchmark {
+    private static final int PARENT_COUNT = 64;
+    @Param({"50", "500"})
+    int tickerCount;
+    @Param({"250", "2500"})
+    int dayCount;
+    private Optimizer optimizer;
+    private Portfolio[] parents;
+    private int next;
+
+    /**
+     * Creates the tickers, an optimizer over them and the parents it expands.
+     *
+     * @throws IOException on error creating the unused output directory
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Ticker[] tickers = BenchmarkFixtures.tickers(tickerCount, dayCount);
+        Metrics metrics = new Metrics();
+        Path outputDir = Files.createTempDirectory("mvo-benchmark");
+        BinaryFrontierSerializer serializer = new BinaryFrontierSerializer(outputDir);
+        optimizer = new Optimizer(List.of(tickers),
+                                  serializer,
+                                  new CheckpointWriter(serializer, metrics),
+                                  FrontierType.ARRAY,
+                                  metrics,
+                                  new MetricsExporter(metrics, 0),
+                                  outputDir);
+        parents = BenchmarkFixtures.portfolios(tickers, PARENT_COUNT);
+    }
+
+    private Portfolio nextParent() {
+        next = (next + 1) % parents.length;
+        return parents[next];
+    }
+
+    /**
+     * Twiddles a parent into a set of its own.
+     *
+     * @return neighbors kept
+     */
+    @Benchmark
+    public MeanVarianceSet twiddle() {
+        MeanVarianceSet output = new MeanVarianceSet();
+        optimizer.twiddle(nextParent(), output);
+        return output;
+    }
+
+    @Benchmark
+    public void allPermutations(Blackhole blackhole) {
+        optimizer.allPermutations(nextParent()).forEach(blackhole::consume);
+    }
+}
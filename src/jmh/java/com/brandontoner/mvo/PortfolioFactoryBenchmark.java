@@ -0,0 +1,47 @@
+package com.brandontoner.mvo;
+
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Evaluation of a single portfolio from scratch.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class PortfolioFactoryBenchmark {
+    @Param({"50", "500"})
+    int tickerCount;
+    @Param({"250", "2500"})
+    int dayCount;
+    private Ticker[] tickers;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        tickers = BenchmarkFixtures.tickers(tickerCount, dayCount);
+        counts = BenchmarkFixtures.counts(tickerCount, 1, new Random(BenchmarkFixtures.SEED))[0];
+    }
+
+    @Benchmark
+    public Portfolio get() {
+        return PortfolioFactory.get(tickers, counts);
+    }
+
+    /**
+     * Evaluates the portfolio without allocating it.
+     *
+     * @param blackhole consumer of the result
+     */
+    @Benchmark
+    public void getMeanAndVariance(Blackhole blackhole) {
+        double[] meanAndVariance = new double[2];
+        PortfolioFactory.getMeanAndVariance(tickers, counts, meanAndVariance);
+        blackhole.consume(meanAndVariance);
+    }
+}
@@ -9,6 +9,9 @@ import org.openjdk.jmh.infra.Blackhole;
 public class StatisticsBenchmark {
     private static final double[] DOUBLES = ThreadLocalRandom.current().doubles(1000).toArray();
     private static final double DOUBLES_MEAN = DoubleStream.of(DOUBLES).average().getAsDouble();
+    private static final double[] BASE = ThreadLocalRandom.current().doubles(250, 900, 1100).toArray();
+    private static final double[] DELTA = ThreadLocalRandom.current().doubles(250, -1, 1).toArray();
+    private static final double K = 3;
     private static final int FORK = 1;
 
     @Fork(FORK)
@@ -23,4 +26,17 @@ public class StatisticsBenchmark {
     public void variance(Blackhole blackhole) {
         blackhole.consume(Statistics.variance(DOUBLES, DOUBLES_MEAN));
     }
+
+    /**
+     * Single pass kernel used to evaluate neighbors.
+     *
+     * @param blackhole consumer of the result
+     */
+    @Fork(FORK)
+    @Benchmark
+    public void returnsMeanAndVariance(Blackhole blackhole) {
+        double[] meanAndVariance = new double[2];
+        Statistics.returnsMeanAndVariance(BASE, DELTA, K, meanAndVariance);
+        blackhole.consume(meanAndVariance);
+    }
 }
@@ -0,0 +1,232 @@
+package com.brandontoner.mvo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Persists the frontier in a compact binary file, {@code cache.bin}, which {@link MappedFrontier} reads in place.
+ * <p>
+ * The layout, big endian, is
+ * </p>
+ * <pre>
+ * int     magic "MVOF"
+ * int     version
+ * long    fingerprint of the tickers, see {@link FrontierSerializer#fingerprint(Ticker[])}
+ * int     ticker count, t
+ * t *     (unsigned short length, UTF-8 name), the symbol table counts refer to
+ * int     portfolio count, n
+ * n *     double mean, in increasing order
+ * n *     double variance
+ * n + 1 * int offset of each portfolio's counts, relative to the counts section
+ * counts  per portfolio, varint number of non zero counts, then (varint ticker index delta, varint count) pairs
+ * </pre>
+ * <p>
+ * All portfolios must share the same ticker array. Each write replaces the whole file through a temp file and an
+ * atomic move.
+ * </p>
+ */
+@Singleton
+public class BinaryFrontierSerializer implements FrontierSerializer {
+    static final int MAGIC = 0x4D564F46;
+    static final int VERSION = 1;
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final Path outputDir;
+    private final Path path;
+    /** Tickers the fingerprint was last computed for. */
+    private Ticker[] fingerprinted;
+    private long fingerprint;
+
+    @Inject
+    BinaryFrontierSerializer(@Named("outputDir") Path outputDir) {
+        this.outputDir = outputDir;
+        path = outputDir.resolve("cache.bin");
+    }
+
+    @Override
+    public synchronized void writeTo(Iterable<Portfolio> portfolios) throws IOException {
+        MvoEvents.CacheWrite event = new MvoEvents.CacheWrite();
+        event.begin();
+        final long startTimeNs = System.nanoTime();
+        List<Portfolio> list = new ArrayList<>();
+        portfolios.forEach(list::add);
+        Ticker[] tickers = list.isEmpty() ? new Ticker[0] : list.get(0).tickers();
+
+        // encode the counts first, their offsets precede them
+        ByteArrayOutputStream counts = new ByteArrayOutputStream();
+        int[] countOffsets = new int[list.size() + 1];
+        for (int i = 0; i < list.size(); i++) {
+            Portfolio portfolio = list.get(i);
+            if (portfolio.tickers() != tickers && !Arrays.equals(portfolio.tickers(), tickers)) {
+                throw new IllegalArgumentException("All portfolios must have the same tickers");
+            }
+            writeCounts(counts, portfolio.holdings());
+            countOffsets[i + 1] = counts.size();
+        }
+
+        Path temp = Files.createTempFile(outputDir, "cache.", ".bin.temp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temp);
+                 BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+                 DataOutputStream output = new DataOutputStream(bufferedOutputStream)) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(fingerprint(tickers));
+                output.writeInt(tickers.length);
+                for (Ticker ticker : tickers) {
+                    byte[] name = ticker.getName().getBytes(StandardCharsets.UTF_8);
+                    output.writeShort(name.length);
+                    output.write(name);
+                }
+                output.writeInt(list.size());
+                for (Portfolio portfolio : list) {
+                    output.writeDouble(portfolio.mean());
+                }
+                for (Portfolio portfolio : list) {
+                    output.writeDouble(portfolio.variance());
+                }
+                for (int countOffset : countOffsets) {
+                    output.writeInt(countOffset);
+                }
+                counts.writeTo(output);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (event.shouldCommit()) {
+            event.format = "binary";
+            event.entries = list.size();
+            event.bytes = Files.size(path);
+            event.commit();
+        }
+        long endTimeNs = System.nanoTime();
+        LOGGER.info("Wrote {} entries ({} bytes) to {} in {} seconds",
+                    list.size(),
+                    Files.size(path),
+                    path,
+                    (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void writeCounts(ByteArrayOutputStream output, Holdings holdings) {
+        writeVarint(output, holdings.size());
+        int previous = 0;
+        for (int i = 0; i < holdings.size(); i++) {
+            writeVarint(output, holdings.index(i) - previous);
+            writeVarint(output, holdings.count(i));
+            previous = holdings.index(i);
+        }
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     */
+    private static void writeVarint(ByteArrayOutputStream output, int value) {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    /**
+     * Gets the fingerprint of tickers, cached for the last array.
+     */
+    private synchronized long fingerprint(Ticker[] tickers) {
+        if (tickers != fingerprinted) {
+            fingerprint = FrontierSerializer.fingerprint(tickers);
+            fingerprinted = tickers;
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public MeanVarianceSet load(Ticker[] tickers) {
+        MvoEvents.CacheLoad event = new MvoEvents.CacheLoad();
+        event.begin();
+        final long startTimeNs = System.nanoTime();
+        MeanVarianceSet output = new MeanVarianceSet();
+        MappedFrontier frontier;
+        boolean trusted;
+        try {
+            // read rather than mapped, so a later writeTo can replace the file
+            frontier = MappedFrontier.read(path);
+            trusted = frontier.fingerprint() == fingerprint(tickers);
+            output.addAll(decode(frontier, tickers, trusted));
+        } catch (Exception e) {
+            LOGGER.error("Failed to load cache file", e);
+            return new MeanVarianceSet();
+        }
+        if (event.shouldCommit()) {
+            event.format = "binary";
+            event.entries = frontier.size();
+            event.valid = output.size();
+            event.bytes = path.toFile().length();
+            event.statisticsReused = trusted;
+            event.commit();
+        }
+        long endTimeNs = System.nanoTime();
+        LOGGER.info("Read {} entries, {} valid ({} bytes) from {} in {} seconds, statistics {}",
+                    frontier.size(),
+                    output.size(),
+                    path.toFile().length(),
+                    path,
+                    (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1),
+                    trusted ? "reused" : "recomputed");
+        return output;
+    }
+
+    /**
+     * Decodes the portfolios of a frontier file which only hold tickers of the universe.
+     *
+     * @param frontier frontier file
+     * @param tickers  array of tickers sorted by name
+     * @param trusted  whether the stored statistics were computed with the same prices
+     * @return portfolios
+     */
+    private static List<Portfolio> decode(MappedFrontier frontier, Ticker[] tickers, boolean trusted) {
+        Map<String, Integer> tickerIndices = new HashMap<>();
+        for (int i = 0; i < tickers.length; i++) {
+            tickerIndices.put(tickers[i].getName(), i);
+        }
+        int[] tickerMap = frontier.tickerNames()
+                                  .stream()
+                                  .mapToInt(name -> tickerIndices.getOrDefault(name, -1))
+                                  .toArray();
+        if (trusted) {
+            return IntStream.range(0, frontier.size()).mapToObj(i -> {
+                Holdings holdings = frontier.holdings(i, tickerMap);
+                return holdings == null
+                       ? null
+                       : new Portfolio(tickers, holdings, frontier.mean(i), frontier.variance(i));
+            }).filter(Objects::nonNull).toList();
+        }
+        // stored statistics are from other prices, recompute them
+        List<Holdings> holdings = IntStream.range(0, frontier.size())
+                                           .parallel()
+                                           .mapToObj(i -> frontier.holdings(i, tickerMap))
+                                           .filter(Objects::nonNull)
+                                           .toList();
+        return PortfolioFactory.getAll(tickers, holdings);
+    }
+}
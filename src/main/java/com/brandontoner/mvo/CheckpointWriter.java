@@ -0,0 +1,203 @@
+package com.brandontoner.mvo;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes checkpoints of the frontier on a background thread, so the search does not stall while they are written.
+ * <p>
+ * Requesting a checkpoint only takes a {@link EfficientFrontier#snapshot()}. At most one snapshot waits while a write
+ * is in flight, a newer request replaces it, since only the latest state matters.
+ * </p>
+ */
+@Singleton
+public class CheckpointWriter implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final FrontierSerializer frontierSerializer;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Snapshot waiting to be written, null if none. */
+    private final AtomicReference<List<Portfolio>> pending = new AtomicReference<>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final Metrics.Counter requests;
+    private final Metrics.Counter coalesced;
+    private final AtomicLong writes = new AtomicLong();
+    private final Metrics.Counter failures;
+    private final AtomicLong totalLatencyNs = new AtomicLong();
+    private final AtomicLong lastLatencyNs = new AtomicLong();
+    private final AtomicLong maxLatencyNs = new AtomicLong();
+    private final Metrics.Histogram latencyHistogram;
+
+    @Inject
+    CheckpointWriter(FrontierSerializer frontierSerializer, Metrics metrics) {
+        this.frontierSerializer = frontierSerializer;
+        latencyHistogram = metrics.histogram("mvo_checkpoint_seconds",
+                                             "Time taken to write a checkpoint",
+                                             0.01, 0.05, 0.1, 0.5, 1, 5, 10, 60);
+        metrics.gauge("mvo_checkpoint_queue_depth", "Checkpoints being written or waiting", this::queueDepth);
+        requests = metrics.counter("mvo_checkpoint_requests_total", "Checkpoints requested");
+        coalesced = metrics.counter("mvo_checkpoint_coalesced_total", "Checkpoint requests replaced by a newer one");
+        failures = metrics.counter("mvo_checkpoint_failures_total", "Checkpoints which failed to be written");
+    }
+
+    /**
+     * Requests a checkpoint of the frontier. Returns as soon as the snapshot is taken.
+     *
+     * @param portfolios frontier to checkpoint
+     */
+    public void request(EfficientFrontier portfolios) {
+        requests.increment();
+        if (pending.getAndSet(portfolios.snapshot()) != null) {
+            // a write is already scheduled and will pick up this snapshot instead
+            coalesced.increment();
+        } else {
+            executor.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        List<Portfolio> snapshot = pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        writing.set(true);
+        long startTimeNs = System.nanoTime();
+        try {
+            frontierSerializer.writeTo(snapshot);
+            long latencyNs = System.nanoTime() - startTimeNs;
+            writes.incrementAndGet();
+            totalLatencyNs.addAndGet(latencyNs);
+            lastLatencyNs.set(latencyNs);
+            maxLatencyNs.accumulateAndGet(latencyNs, Math::max);
+            latencyHistogram.observe(latencyNs / 1e9);
+        } catch (Exception e) {
+            failures.increment();
+            LOGGER.error("Failed to write checkpoint", e);
+        } finally {
+            writing.set(false);
+        }
+    }
+
+    /**
+     * Waits for all requested checkpoints to be written.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes any pending checkpoint and stops the background thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+                LOGGER.warn("Timed out waiting for checkpoints to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of checkpoints which are being written or waiting to be written.
+     *
+     * @return 0, 1 or 2
+     */
+    public int queueDepth() {
+        return (writing.get() ? 1 : 0) + (pending.get() == null ? 0 : 1);
+    }
+
+    /**
+     * Gets the number of checkpoints requested.
+     *
+     * @return number of requests
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of requests which replaced a snapshot that was still waiting to be written.
+     *
+     * @return number of coalesced requests
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of checkpoints written successfully.
+     *
+     * @return number of writes
+     */
+    public long writes() {
+        return writes.get();
+    }
+
+    /**
+     * Gets the number of checkpoints which failed to be written.
+     *
+     * @return number of failures
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the time taken by the last successful write.
+     *
+     * @return latency in nanoseconds, 0 if none
+     */
+    public long lastLatencyNs() {
+        return lastLatencyNs.get();
+    }
+
+    /**
+     * Gets the longest time taken by a successful write.
+     *
+     * @return latency in nanoseconds, 0 if none
+     */
+    public long maxLatencyNs() {
+        return maxLatencyNs.get();
+    }
+
+    /**
+     * Gets the total time taken by successful writes.
+     *
+     * @return latency in nanoseconds
+     */
+    public long totalLatencyNs() {
+        return totalLatencyNs.get();
+    }
+
+    @Override
+    public String toString() {
+        long writes = writes();
+        return "CheckpointWriter{requests=%s, coalesced=%s, writes=%s, failures=%s, queueDepth=%s, lastLatency=%.3fs,"
+               .formatted(requests(), coalesced(), writes, failures(), queueDepth(), lastLatencyNs() / 1e9)
+               + " meanLatency=%.3fs, maxLatency=%.3fs}".formatted(writes == 0 ? 0 : totalLatencyNs() / 1e9 / writes,
+                                                                   maxLatencyNs() / 1e9);
+    }
+}
@@ -0,0 +1,429 @@
+package com.brandontoner.mvo;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link EfficientFrontier} stored as parallel primitive arrays rather than {@link Portfolio} objects.
+ * <p>
+ * Means and variances are kept in sorted {@code double[]}s, so the binary search by mean walks a single contiguous
+ * array. The {@link Holdings} of every portfolio live in one flat {@code int[]} pool, as the number of tickers held
+ * followed by (index, count) pairs, so a portfolio takes space for what it holds rather than for the whole universe.
+ * The sorted position of each portfolio maps to the offset of its holdings. Adding appends to the pool and inserting
+ * shifts the two double arrays and the offset array, but never the pool. Holdings replaced or removed are left in
+ * place until they make up half of the pool, which is then compacted. {@link Portfolio} objects are only materialized
+ * by {@link #get(int)} and iteration.
+ * </p>
+ * <p>
+ * All portfolios must share the same ticker array, the universe. Not thread safe.
+ * </p>
+ */
+public class CompactMeanVarianceSet extends AbstractCollection<Portfolio> implements EfficientFrontier {
+    private static final int INITIAL_CAPACITY = 16;
+    /** Tickers shared by every portfolio, null until the first add. */
+    private Ticker[] tickers;
+    /** Number of portfolios. */
+    private int size;
+    /** Mean of the portfolio at each sorted position. */
+    private double[] means = new double[INITIAL_CAPACITY];
+    /** Variance of the portfolio at each sorted position. */
+    private double[] variances = new double[INITIAL_CAPACITY];
+    /** Offset in the holdings pool of the portfolio at each sorted position. */
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    /** Holdings of all portfolios, each as size then size (index, count) pairs. */
+    private int[] holdingsPool = new int[INITIAL_CAPACITY];
+    /** Number of ints of the pool in use, including holdings no longer referenced. */
+    private int poolSize;
+    /** Number of ints of the pool referenced by a sorted position. */
+    private int liveSize;
+    /** Number of structural modifications, used to make iterators fail fast. */
+    private int modCount;
+
+    public CompactMeanVarianceSet() {
+        // noop
+    }
+
+    public CompactMeanVarianceSet(Collection<Portfolio> expected) {
+        addAll(expected);
+    }
+
+    private CompactMeanVarianceSet(CompactMeanVarianceSet other) {
+        tickers = other.tickers;
+        size = other.size;
+        means = Arrays.copyOf(other.means, size);
+        variances = Arrays.copyOf(other.variances, size);
+        offsets = Arrays.copyOf(other.offsets, size);
+        holdingsPool = Arrays.copyOf(other.holdingsPool, other.poolSize);
+        poolSize = other.poolSize;
+        liveSize = other.liveSize;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Portfolio portfolio && indexOf(portfolio) >= 0;
+    }
+
+    /**
+     * Finds the position of a portfolio.
+     *
+     * @return sorted position, or -1 if not present
+     */
+    private int indexOf(Portfolio portfolio) {
+        if (portfolio.tickers() != tickers && !Arrays.equals(portfolio.tickers(), tickers)) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(means, 0, size, portfolio.mean());
+        if (index < 0 || Double.compare(variances[index], portfolio.variance()) != 0) {
+            return -1;
+        }
+        return holdingsEqual(offsets[index], portfolio.holdings()) ? index : -1;
+    }
+
+    private boolean holdingsEqual(int offset, Holdings holdings) {
+        if (holdingsPool[offset] != holdings.size()) {
+            return false;
+        }
+        for (int i = 0; i < holdings.size(); i++) {
+            if (holdingsPool[offset + 1 + 2 * i] != holdings.index(i)
+                || holdingsPool[offset + 2 + 2 * i] != holdings.count(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<Portfolio> iterator() {
+        return new CompactIterator();
+    }
+
+    @Override
+    public Portfolio get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index %s out of bounds for length %s".formatted(index, size));
+        }
+        return new Portfolio(tickers, holdings(offsets[index]), means[index], variances[index]);
+    }
+
+    private Holdings holdings(int offset) {
+        int held = holdingsPool[offset];
+        int[] indices = new int[held];
+        int[] counts = new int[held];
+        for (int i = 0; i < held; i++) {
+            indices[i] = holdingsPool[offset + 1 + 2 * i];
+            counts[i] = holdingsPool[offset + 2 + 2 * i];
+        }
+        return Holdings.ofSorted(indices, counts);
+    }
+
+    @Override
+    public boolean add(Portfolio portfolio) {
+        return add(portfolio.tickers(), portfolio.holdings(), portfolio.mean(), portfolio.variance());
+    }
+
+    /**
+     * Adds a portfolio to the set. Never allocates a {@link Portfolio}, the holdings are copied into the pool.
+     */
+    private boolean add(Ticker[] tickers, Holdings counts, double mean, double variance) {
+        checkTickers(tickers);
+        int index = Arrays.binarySearch(means, 0, size, mean);
+        if (index >= 0) {
+            if (variance < variances[index]) {
+                set(index, counts, mean, variance);
+                removeDominated(index, variance);
+                return true;
+            } else {
+                return false;
+            }
+        }
+        index = -(index + 1);
+        if (index > 0 && variance <= variances[index - 1]) {
+            set(index - 1, counts, mean, variance);
+            removeDominated(index - 1, variance);
+            return true;
+        }
+        if (index < size && variance >= variances[index]) {
+            return false;
+        }
+        insert(index, counts, mean, variance);
+        return true;
+    }
+
+    @Override
+    public boolean isDominated(double mean, double variance) {
+        int index = Arrays.binarySearch(means, 0, size, mean);
+        // the portfolio with the lowest mean at least as high has the lowest variance of all such portfolios
+        int ceiling = index >= 0 ? index : -(index + 1);
+        return ceiling < size && variances[ceiling] <= variance;
+    }
+
+    private void checkTickers(Ticker[] tickers) {
+        if (this.tickers == null) {
+            this.tickers = tickers;
+        } else if (tickers != this.tickers && !Arrays.equals(tickers, this.tickers)) {
+            throw new IllegalArgumentException("All portfolios must have the same tickers");
+        }
+    }
+
+    private void set(int index, Holdings holdings, double mean, double variance) {
+        liveSize -= entrySize(offsets[index]);
+        // compacting before the position is set must not copy the replaced holdings
+        offsets[index] = -1;
+        setNew(index, holdings, mean, variance);
+    }
+
+    /**
+     * Sets a position whose previous holdings, if any, are already accounted as unreferenced.
+     */
+    private void setNew(int index, Holdings holdings, double mean, double variance) {
+        means[index] = mean;
+        variances[index] = variance;
+        offsets[index] = append(holdings);
+        modCount++;
+    }
+
+    private void insert(int index, Holdings holdings, double mean, double variance) {
+        if (size == means.length) {
+            int capacity = size * 2;
+            means = Arrays.copyOf(means, capacity);
+            variances = Arrays.copyOf(variances, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        System.arraycopy(means, index, means, index + 1, size - index);
+        System.arraycopy(variances, index, variances, index + 1, size - index);
+        System.arraycopy(offsets, index, offsets, index + 1, size - index);
+        offsets[index] = -1;
+        size++;
+        setNew(index, holdings, mean, variance);
+    }
+
+    private int entrySize(int offset) {
+        return 1 + 2 * holdingsPool[offset];
+    }
+
+    /**
+     * Appends holdings to the pool, compacting or growing it first if full.
+     *
+     * @return offset of the holdings
+     */
+    private int append(Holdings holdings) {
+        int entrySize = 1 + 2 * holdings.size();
+        if (poolSize + entrySize > holdingsPool.length) {
+            if (poolSize - liveSize >= poolSize / 2) {
+                compact(entrySize);
+            } else {
+                holdingsPool = Arrays.copyOf(holdingsPool, Math.max(holdingsPool.length * 2, poolSize + entrySize));
+            }
+        }
+        int offset = poolSize;
+        holdingsPool[offset] = holdings.size();
+        for (int i = 0; i < holdings.size(); i++) {
+            holdingsPool[offset + 1 + 2 * i] = holdings.index(i);
+            holdingsPool[offset + 2 + 2 * i] = holdings.count(i);
+        }
+        poolSize += entrySize;
+        liveSize += entrySize;
+        return offset;
+    }
+
+    /**
+     * Copies the referenced holdings to a new pool, in sorted order, with room for {@code extra} more ints.
+     */
+    private void compact(int extra) {
+        int[] pool = new int[Math.max(INITIAL_CAPACITY, 2 * (liveSize + extra))];
+        int compactSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (offsets[i] >= 0) {
+                int entrySize = entrySize(offsets[i]);
+                System.arraycopy(holdingsPool, offsets[i], pool, compactSize, entrySize);
+                offsets[i] = compactSize;
+                compactSize += entrySize;
+            }
+        }
+        holdingsPool = pool;
+        poolSize = compactSize;
+    }
+
+    /**
+     * Removes the run of portfolios directly before {@code index} which have a variance greater than or equal to
+     * {@code variance}.
+     */
+    private void removeDominated(int index, double variance) {
+        int start = index;
+        while (start > 0 && variances[start - 1] >= variance) {
+            start--;
+        }
+        removeRange(start, index);
+    }
+
+    private void removeRange(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            liveSize -= entrySize(offsets[i]);
+        }
+        System.arraycopy(means, to, means, from, size - to);
+        System.arraycopy(variances, to, variances, from, size - to);
+        System.arraycopy(offsets, to, offsets, from, size - to);
+        size -= to - from;
+        modCount++;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Portfolio portfolio)) {
+            return false;
+        }
+        int index = indexOf(portfolio);
+        if (index < 0) {
+            return false;
+        }
+        removeRange(index, index + 1);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(@Nonnull Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(@Nonnull Collection<?> c) {
+        return removeIf(p -> !c.contains(p));
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Portfolio> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (filter.test(get(i))) {
+                liveSize -= entrySize(offsets[i]);
+            } else {
+                means[kept] = means[i];
+                variances[kept] = variances[i];
+                offsets[kept] = offsets[i];
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        poolSize = 0;
+        liveSize = 0;
+        modCount++;
+    }
+
+    /**
+     * Gets an immutable snapshot of the set, ordered by mean. The arrays are copied, portfolios are materialized when
+     * the snapshot is read.
+     *
+     * @return snapshot
+     */
+    @Override
+    public List<Portfolio> snapshot() {
+        return new Snapshot(new CompactMeanVarianceSet(this));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CompactMeanVarianceSet that = (CompactMeanVarianceSet) o;
+        if (size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!get(i).equals(that.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (Portfolio portfolio : this) {
+            hashCode = 31 * hashCode + portfolio.hashCode();
+        }
+        return hashCode;
+    }
+
+    /**
+     * Iterator which materializes each portfolio as it is reached.
+     */
+    private final class CompactIterator implements Iterator<Portfolio> {
+        private final int expectedModCount = modCount;
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Portfolio next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(index++);
+        }
+    }
+
+    /**
+     * Read only list view of a copy of a set.
+     */
+    private static final class Snapshot extends AbstractList<Portfolio> implements RandomAccess {
+        private final CompactMeanVarianceSet set;
+
+        private Snapshot(CompactMeanVarianceSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public Portfolio get(int index) {
+            return set.get(index);
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.brandontoner.mvo;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+
+/**
+ * A thread safe {@link EfficientFrontier} which many threads can add to at once.
+ * <p>
+ * Portfolios are kept in a skip list keyed on mean. Checking whether a portfolio is dominated only needs the entry
+ * with the next greater or equal mean, which is a lock-free read, and most candidates are rejected by that check.
+ * Candidates which pass it are re-checked and inserted under a lock. While an insert is pruning, readers may still see
+ * portfolios the new one dominates, but anything those reject is also dominated by the new one, so rejections are
+ * never wrong.
+ * </p>
+ * <p>
+ * {@link #iterator()}, {@link #get(int)} and {@link #snapshot()} work on an immutable snapshot which is taken under
+ * the lock and reused until the next modification, so they are consistent even while other threads are adding.
+ * </p>
+ */
+public class ConcurrentMeanVarianceSet extends AbstractCollection<Portfolio> implements EfficientFrontier {
+    /** Map of mean to portfolio. */
+    private final ConcurrentNavigableMap<Double, Portfolio> portfolios = new ConcurrentSkipListMap<>();
+    /** Held while modifying portfolios. */
+    private final Lock lock = new ReentrantLock();
+    /** Number of portfolios, only written while holding the lock. */
+    private volatile int size;
+    /** Last snapshot taken, null if modified since. */
+    private volatile List<Portfolio> snapshot = List.of();
+
+    public ConcurrentMeanVarianceSet() {
+        // noop
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return portfolios.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Portfolio portfolio)) {
+            return false;
+        }
+        return portfolio.equals(portfolios.get(portfolio.mean()));
+    }
+
+    @Override
+    public Iterator<Portfolio> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * Returns the element at the specified position of the current snapshot. Taking a snapshot is O(n) if the set has
+     * been modified since the last one, callers sampling many elements should use {@link #snapshot()} directly.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position
+     */
+    @Override
+    public Portfolio get(int index) {
+        return snapshot().get(index);
+    }
+
+    @Override
+    public boolean add(Portfolio portfolio) {
+        if (isDominated(portfolio.mean(), portfolio.variance())) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (isDominated(portfolio.mean(), portfolio.variance())) {
+                return false;
+            }
+            insert(portfolio);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isDominated(double mean, double variance) {
+        Map.Entry<Double, Portfolio> ceiling = portfolios.ceilingEntry(mean);
+        return ceiling != null && ceiling.getValue().variance() <= variance;
+    }
+
+    /**
+     * Inserts a portfolio which is not dominated, removing all the portfolios it dominates. Must hold the lock.
+     */
+    private void insert(Portfolio portfolio) {
+        int newSize = size;
+        // replaces the portfolio with an equal mean, if any, since it has a higher variance
+        if (portfolios.put(portfolio.mean(), portfolio) == null) {
+            newSize++;
+        }
+        Iterator<Portfolio> lower = portfolios.headMap(portfolio.mean(), false).descendingMap().values().iterator();
+        while (lower.hasNext() && lower.next().variance() >= portfolio.variance()) {
+            lower.remove();
+            newSize--;
+        }
+        size = newSize;
+        snapshot = null;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Portfolio portfolio)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (portfolios.remove(portfolio.mean(), portfolio)) {
+                size--;
+                snapshot = null;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeAll(@Nonnull Collection<?> c) {
+        boolean changed = false;
+        for (Portfolio portfolio : snapshot()) {
+            if (c.contains(portfolio) && remove(portfolio)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(@Nonnull Collection<?> c) {
+        boolean changed = false;
+        for (Portfolio portfolio : snapshot()) {
+            if (!c.contains(portfolio) && remove(portfolio)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            portfolios.clear();
+            size = 0;
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets an immutable snapshot of the set, ordered by mean.
+     *
+     * @return snapshot
+     */
+    @Override
+    public List<Portfolio> snapshot() {
+        List<Portfolio> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.lock();
+        try {
+            current = snapshot;
+            if (current == null) {
+                current = List.copyOf(portfolios.values());
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ConcurrentMeanVarianceSet that = (ConcurrentMeanVarianceSet) o;
+        return snapshot().equals(that.snapshot());
+    }
+
+    @Override
+    public int hashCode() {
+        return snapshot().hashCode();
+    }
+}
@@ -0,0 +1,217 @@
+package com.brandontoner.mvo;
+
+import java.util.stream.IntStream;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Approximate model of portfolio returns, for screening neighbors before evaluating them exactly.
+ * <p>
+ * A portfolio is modeled as holding {@code x_i = count_i * price_i} of each ticker, at its mean price, with the mean
+ * and covariance of the tickers' day over day returns, so its mean is {@code mu . x / V} and its variance
+ * {@code x' Sigma x / V^2}, where {@code V} is the sum of {@code x}. Moving {@code k} units between two tickers
+ * changes {@code x} in two entries, so a neighbor is scored in O(1) from terms computed once per parent and once per
+ * pair of tickers.
+ * </p>
+ * <p>
+ * Fixing the weights at mean prices ignores how they drift from day to day, so the model is biased. It is only used
+ * for the change a move makes, which is added to the parent's exact mean and variance.
+ * </p>
+ * <p>
+ * The covariance matrix takes tickers * tickers doubles, 8 MB for 1000 tickers and 800 MB for 10000, so callers
+ * build the model only when screening is enabled and bound the number of tickers.
+ * </p>
+ */
+public final class CovarianceModel {
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** Number of tickers. */
+    private final int size;
+    /** Mean price per ticker. */
+    private final double[] prices;
+    /** Mean day over day return per ticker. */
+    private final double[] means;
+    /** Covariance of the day over day returns, size * size, row-major. */
+    private final double[] covariances;
+    private final ThreadLocal<Scorer> scorers = ThreadLocal.withInitial(Scorer::new);
+
+    private CovarianceModel(int size, double[] prices, double[] means, double[] covariances) {
+        this.size = size;
+        this.prices = prices;
+        this.means = means;
+        this.covariances = covariances;
+    }
+
+    /**
+     * Computes the model of a universe, in parallel.
+     *
+     * @param tickers universe, all with the same number of days
+     * @return model
+     */
+    public static CovarianceModel of(Ticker[] tickers) {
+        int size = tickers.length;
+        int n = tickers[0].getPriceMatrix().dayCount() - 1;
+        double[] prices = new double[size];
+        double[] means = new double[size];
+        // centered returns, ticker-major
+        double[][] centered = new double[size][];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            double[] closes = tickers[i].getPriceMatrix().prices();
+            int offset = tickers[i].getOffset();
+            double[] returns = new double[n];
+            for (int t = 0; t < n; t++) {
+                returns[t] = closes[offset + t + 1] / closes[offset + t];
+            }
+            double mean = Statistics.mean(returns);
+            for (int t = 0; t < n; t++) {
+                returns[t] -= mean;
+            }
+            double priceSum = 0;
+            for (int t = 0; t <= n; t++) {
+                priceSum += closes[offset + t];
+            }
+            prices[i] = priceSum / (n + 1);
+            means[i] = mean;
+            centered[i] = returns;
+        });
+        double[] covariances = new double[Math.multiplyExact(size, size)];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            for (int j = i; j < size; j++) {
+                double covariance = dot(centered[i], centered[j]) / n;
+                covariances[i * size + j] = covariance;
+                covariances[j * size + i] = covariance;
+            }
+        });
+        return new CovarianceModel(size, prices, means, covariances);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        var sum = DoubleVector.zero(DOUBLE_SPECIES);
+        int i = 0;
+        int upperBound = DOUBLE_SPECIES.loopBound(a.length);
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            sum = DoubleVector.fromArray(DOUBLE_SPECIES, a, i).fma(DoubleVector.fromArray(DOUBLE_SPECIES, b, i), sum);
+        }
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    /**
+     * Gets the scorer of the current thread, initialized with the provided parent portfolio. The scorer is valid
+     * until the next call to this method on the same thread.
+     *
+     * @param parent parent portfolio, from the universe of this model
+     * @return scorer for the neighbors of the parent
+     */
+    public Scorer forParent(Portfolio parent) {
+        Scorer scorer = scorers.get();
+        scorer.setParent(parent);
+        return scorer;
+    }
+
+    /**
+     * Estimates the means and variances of the neighbors of a parent portfolio, where a neighbor moves {@code k}
+     * units from one ticker to another.
+     */
+    public final class Scorer {
+        /** Holdings of the parent. */
+        private Holdings holdings;
+        /** Exact mean of the parent. */
+        private double parentMean;
+        /** Exact variance of the parent. */
+        private double parentVariance;
+        /** Modeled value of the parent, sum of x. */
+        private double value;
+        /** mu . x of the parent. */
+        private double weightedMean;
+        /** x' Sigma x of the parent. */
+        private double quadraticForm;
+        /** Modeled mean of the parent. */
+        private double modelMean;
+        /** Modeled variance of the parent. */
+        private double modelVariance;
+        /** Index of the ticker units are taken from, -1 if not computed. */
+        private int from = -1;
+        /** Index of the ticker units are given to, -1 if not computed. */
+        private int to = -1;
+        /** Change in value per unit moved between from and to. */
+        private double valueDelta;
+        /** Change in mu . x per unit moved between from and to. */
+        private double weightedMeanDelta;
+        /** Change in x' Sigma x per unit moved between from and to, linear term. */
+        private double linearDelta;
+        /** Change in x' Sigma x per unit moved between from and to, quadratic term. */
+        private double quadraticDelta;
+
+        private Scorer() {
+        }
+
+        private void setParent(Portfolio parent) {
+            holdings = parent.holdings();
+            parentMean = parent.mean();
+            parentVariance = parent.variance();
+            value = 0;
+            weightedMean = 0;
+            quadraticForm = 0;
+            for (int p = 0; p < holdings.size(); p++) {
+                int i = holdings.index(p);
+                double x = holdings.count(p) * prices[i];
+                value += x;
+                weightedMean += means[i] * x;
+                quadraticForm += x * sigmaX(i);
+            }
+            modelMean = weightedMean / value;
+            modelVariance = quadraticForm / (value * value);
+            from = -1;
+            to = -1;
+        }
+
+        /**
+         * Gets row i of Sigma times x of the parent, in O(holdings).
+         */
+        private double sigmaX(int i) {
+            double sum = 0;
+            int row = i * size;
+            for (int p = 0; p < holdings.size(); p++) {
+                int j = holdings.index(p);
+                sum += covariances[row + j] * holdings.count(p) * prices[j];
+            }
+            return sum;
+        }
+
+        /**
+         * Estimates the mean and variance of the parent with {@code k} units moved from ticker {@code from} to
+         * ticker {@code to}, made optimistic by {@code margin} times the change the move makes: the mean is raised
+         * and the variance lowered.
+         *
+         * @param from            index of the ticker to take units from
+         * @param to              index of the ticker to give units to
+         * @param k               number of units to move
+         * @param margin          fraction of the change to add as a safety margin, 0 for the plain estimate
+         * @param meanAndVariance array where mean and variance are stored in index 0 and 1
+         */
+        public void getMeanAndVariance(int from, int to, int k, double margin, double[] meanAndVariance) {
+            if (from != this.from || to != this.to) {
+                double fromPrice = prices[from];
+                double toPrice = prices[to];
+                valueDelta = toPrice - fromPrice;
+                weightedMeanDelta = toPrice * means[to] - fromPrice * means[from];
+                linearDelta = 2 * (toPrice * sigmaX(to) - fromPrice * sigmaX(from));
+                quadraticDelta = toPrice * toPrice * covariances[to * size + to]
+                                 - 2 * fromPrice * toPrice * covariances[from * size + to]
+                                 + fromPrice * fromPrice * covariances[from * size + from];
+                this.from = from;
+                this.to = to;
+            }
+            double movedValue = value + k * valueDelta;
+            double meanChange = (weightedMean + k * weightedMeanDelta) / movedValue - modelMean;
+            double movedQuadraticForm = quadraticForm + k * linearDelta + (double) k * k * quadraticDelta;
+            double varianceChange = movedQuadraticForm / (movedValue * movedValue) - modelVariance;
+            meanAndVariance[0] = parentMean + meanChange + margin * Math.abs(meanChange);
+            meanAndVariance[1] = Math.max(0, parentVariance + varianceChange - margin * Math.abs(varianceChange));
+        }
+    }
+}
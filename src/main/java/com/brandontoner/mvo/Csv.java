@@ -1,60 +1,135 @@
 package com.brandontoner.mvo;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 public class Csv {
+    /** Size of the buffer used when writing to a file. */
+    private static final int BUFFER_SIZE = 1 << 20;
 
     /**
-     * Writes the portfolios as a CSV.
+     * Writes the portfolios as a CSV file.
+     *
+     * @param portfolios portfolios
+     * @param path       output file, replaced if it exists
+     * @throws IOException on error writing
+     */
+    public static void writeCsv(Collection<Portfolio> portfolios, Path path) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path),
+                                                                       StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            writeCsv(portfolios, writer);
+        }
+    }
+
+    /**
+     * Writes the portfolios as a CSV, one column per ticker held by any portfolio, sorted by name, then the mean and
+     * variance. Rows are ordered by mean then variance.
      *
      * @param portfolios portfolios
      * @param appendable output
      * @throws IOException on error writing
      */
     public static void writeCsv(Collection<Portfolio> portfolios, Appendable appendable) throws IOException {
-        SortedSet<String> allTickers = portfolios.stream()
-                                                 .map(Portfolio::countsMap)
-                                                 .map(Map::entrySet)
-                                                 .flatMap(Collection::stream)
-                                                 .filter(e -> e.getValue() != null && e.getValue() != 0)
-                                                 .map(Map.Entry::getKey)
-                                                 .collect(Collectors.toCollection(TreeSet::new));
-        List<Portfolio> portfolioList = new ArrayList<>(portfolios);
-        portfolioList.sort(Comparator.comparingDouble(Portfolio::mean).thenComparingDouble(Portfolio::variance));
-
-        List<String> header = new ArrayList<>(allTickers);
-        header.add("mean");
-        header.add("variance");
-        writeCsvLine(header, appendable);
-
-        for (Portfolio portfolio : portfolioList) {
-            List<String> values = new ArrayList<>();
-            for (String ticker : allTickers) {
-                values.add(portfolio.countsMap().getOrDefault(ticker, 0).toString());
+        // portfolios almost always share one ticker array, so work per array rather than per portfolio
+        Map<Ticker[], boolean[]> held = new IdentityHashMap<>();
+        for (Portfolio portfolio : portfolios) {
+            boolean[] nonZero = held.computeIfAbsent(portfolio.tickers(), tickers -> new boolean[tickers.length]);
+            Holdings holdings = portfolio.holdings();
+            for (int i = 0; i < holdings.size(); i++) {
+                nonZero[holdings.index(i)] = true;
             }
-            values.add(String.valueOf(portfolio.mean()));
-            values.add(String.valueOf(portfolio.variance()));
-            writeCsvLine(values, appendable);
         }
-    }
+        SortedSet<String> allTickers = new TreeSet<>();
+        held.forEach((tickers, nonZero) -> {
+            for (int i = 0; i < tickers.length; i++) {
+                if (nonZero[i]) {
+                    allTickers.add(tickers[i].getName());
+                }
+            }
+        });
+        List<String> columns = new ArrayList<>(allTickers);
+        Map<String, Integer> columnsByName = new HashMap<>();
+        for (int column = 0; column < columns.size(); column++) {
+            columnsByName.put(columns.get(column), column);
+        }
+        // column of each ticker of each ticker array, -1 if never held
+        Map<Ticker[], int[]> columnsOfTickers = new IdentityHashMap<>();
+        held.forEach((tickers, nonZero) -> {
+            int[] columnOfTicker = new int[tickers.length];
+            for (int i = 0; i < tickers.length; i++) {
+                columnOfTicker[i] = nonZero[i] ? columnsByName.get(tickers[i].getName()) : -1;
+            }
+            columnsOfTickers.put(tickers, columnOfTicker);
+        });
+
+        StringBuilder line = new StringBuilder();
+        for (String column : columns) {
+            appendValue(line, column);
+        }
+        appendValue(line, "mean");
+        appendValue(line, "variance");
+        appendLine(line, appendable);
 
-    private static void writeCsvLine(Iterable<? extends CharSequence> values, Appendable a) throws IOException {
-        boolean isFirst = true;
-        for (CharSequence value : values) {
-            if (!isFirst) {
-                a.append(',');
+        Collection<Portfolio> ordered = portfolios;
+        if (!(portfolios instanceof EfficientFrontier)) {
+            List<Portfolio> portfolioList = new ArrayList<>(portfolios);
+            portfolioList.sort(Comparator.comparingDouble(Portfolio::mean).thenComparingDouble(Portfolio::variance));
+            ordered = portfolioList;
+        }
+        int[] row = new int[columns.size()];
+        for (Portfolio portfolio : ordered) {
+            int[] columnOfTicker = columnsOfTickers.get(portfolio.tickers());
+            Holdings holdings = portfolio.holdings();
+            Arrays.fill(row, 0);
+            for (int i = 0; i < holdings.size(); i++) {
+                row[columnOfTicker[holdings.index(i)]] = holdings.count(i);
+            }
+            for (int count : row) {
+                appendValue(line, count);
             }
-            a.append('"').append(value).append('"');
-            isFirst = false;
+            appendValue(line, portfolio.mean());
+            appendValue(line, portfolio.variance());
+            appendLine(line, appendable);
         }
-        a.append(System.lineSeparator());
+    }
+
+    private static void appendValue(StringBuilder line, String value) {
+        startValue(line).append(value).append('"');
+    }
+
+    private static void appendValue(StringBuilder line, int value) {
+        startValue(line).append(value).append('"');
+    }
+
+    private static void appendValue(StringBuilder line, double value) {
+        startValue(line).append(value).append('"');
+    }
+
+    private static StringBuilder startValue(StringBuilder line) {
+        if (!line.isEmpty()) {
+            line.append(',');
+        }
+        return line.append('"');
+    }
+
+    private static void appendLine(StringBuilder line, Appendable a) throws IOException {
+        line.append(System.lineSeparator());
+        a.append(line);
+        line.setLength(0);
     }
 }
@@ -0,0 +1,243 @@
+package com.brandontoner.mvo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Parses daily price CSVs, {@code Date,Open,High,Low,Close,Adj Close,Volume} with a header row, straight from bytes.
+ * <p>
+ * Dates and closing prices are decoded in place without creating a String per line or field. Rows with a {@code null}
+ * field are skipped.
+ * </p>
+ */
+final class CsvPriceParser {
+    /** Index of the close column. */
+    private static final int CLOSE_FIELD = 4;
+    /** Rows containing this are skipped. */
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    /** Powers of ten which are exact doubles. */
+    private static final double[] POWERS_OF_TEN = IntStream.rangeClosed(0, 22)
+                                                           .mapToDouble(i -> Double.parseDouble("1e" + i))
+                                                           .toArray();
+
+    private CsvPriceParser() {
+        // noop
+    }
+
+    /**
+     * Parses a CSV.
+     *
+     * @param name  ticker name
+     * @param bytes CSV contents from position to limit, UTF-8 or ASCII
+     * @return closing prices sorted by date, the last row wins if a date repeats
+     */
+    static PriceSeries parse(String name, ByteBuffer bytes) {
+        int limit = bytes.limit();
+        int position = nextLine(bytes, bytes.position(), limit);
+        int size = 0;
+        int[] epochDays = new int[256];
+        double[] closes = new double[256];
+        boolean sorted = true;
+        while (position < limit) {
+            int lineEnd = nextLine(bytes, position, limit);
+            int end = lineEnd;
+            while (end > position && (bytes.get(end - 1) == '\n' || bytes.get(end - 1) == '\r')) {
+                end--;
+            }
+            if (end > position && !contains(bytes, position, end, NULL)) {
+                if (size == epochDays.length) {
+                    epochDays = Arrays.copyOf(epochDays, size * 2);
+                    closes = Arrays.copyOf(closes, size * 2);
+                }
+                int dateEnd = indexOf(bytes, position, end, (byte) ',');
+                epochDays[size] = parseEpochDay(bytes, position, dateEnd);
+                // comma before the close column
+                int closeStart = dateEnd;
+                for (int field = 1; field < CLOSE_FIELD; field++) {
+                    closeStart = indexOf(bytes, closeStart + 1, end, (byte) ',');
+                }
+                if (closeStart == end) {
+                    throw new IllegalArgumentException("Missing close column in %s: %s".formatted(
+                            name, toString(bytes, position, end)));
+                }
+                closes[size] = parseDouble(bytes, closeStart + 1, indexOf(bytes, closeStart + 1, end, (byte) ','));
+                sorted &= size == 0 || epochDays[size - 1] < epochDays[size];
+                size++;
+            }
+            position = lineEnd;
+        }
+        epochDays = Arrays.copyOf(epochDays, size);
+        closes = Arrays.copyOf(closes, size);
+        return sorted ? new PriceSeries(name, epochDays, closes) : sort(name, epochDays, closes);
+    }
+
+    /**
+     * Sorts rows by date, keeping the last row of each date.
+     */
+    private static PriceSeries sort(String name, int[] epochDays, double[] closes) {
+        // stable, so equal dates stay in file order
+        Integer[] order = IntStream.range(0, epochDays.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, (a, b) -> Integer.compare(epochDays[a], epochDays[b]));
+        int size = 0;
+        int[] sortedDays = new int[epochDays.length];
+        double[] sortedCloses = new double[closes.length];
+        for (int index : order) {
+            if (size > 0 && sortedDays[size - 1] == epochDays[index]) {
+                size--;
+            }
+            sortedDays[size] = epochDays[index];
+            sortedCloses[size] = closes[index];
+            size++;
+        }
+        return new PriceSeries(name, Arrays.copyOf(sortedDays, size), Arrays.copyOf(sortedCloses, size));
+    }
+
+    /**
+     * Gets the start of the line after the one containing position.
+     */
+    private static int nextLine(ByteBuffer bytes, int position, int limit) {
+        int newline = indexOf(bytes, position, limit, (byte) '\n');
+        return newline == limit ? limit : newline + 1;
+    }
+
+    /**
+     * Gets the index of the first occurrence of a byte in [from, to), or to if not present.
+     */
+    private static int indexOf(ByteBuffer bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Checks whether [from, to) contains a sequence of bytes.
+     */
+    private static boolean contains(ByteBuffer bytes, int from, int to, byte[] sequence) {
+        for (int i = from; i <= to - sequence.length; i++) {
+            int j = 0;
+            while (j < sequence.length && bytes.get(i + j) == sequence[j]) {
+                j++;
+            }
+            if (j == sequence.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd date.
+     *
+     * @return days since 1970-01-01
+     */
+    static int parseEpochDay(ByteBuffer bytes, int from, int to) {
+        if (to - from != 10 || bytes.get(from + 4) != '-' || bytes.get(from + 7) != '-') {
+            return (int) LocalDate.parse(toString(bytes, from, to)).toEpochDay();
+        }
+        int year = parseDigits(bytes, from, from + 4);
+        int month = parseDigits(bytes, from + 5, from + 7);
+        int day = parseDigits(bytes, from + 8, from + 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            // let LocalDate report the error
+            return (int) LocalDate.parse(toString(bytes, from, to)).toEpochDay();
+        }
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Parses unsigned decimal digits.
+     *
+     * @return value, or -1 if there is a non digit
+     */
+    private static int parseDigits(ByteBuffer bytes, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Converts a proleptic Gregorian date to days since 1970-01-01, as {@link LocalDate#toEpochDay()}.
+     */
+    static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses a decimal number. Plain decimals with up to 18 significant digits, which cannot overflow a long, whose
+     * digits fit in a double mantissa are converted exactly with a single multiplication or division by a power of
+     * ten, Clinger's fast path. Anything else falls back to {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if not a number
+     */
+    static double parseDouble(ByteBuffer bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes.get(i) == '-' || bytes.get(i) == '+')) {
+            negative = bytes.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean fraction = false;
+        for (; i < to; i++) {
+            byte b = bytes.get(i);
+            if (b >= '0' && b <= '9') {
+                anyDigits = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++significantDigits > 18) {
+                        return fallbackParseDouble(bytes, from, to);
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return fallbackParseDouble(bytes, from, to);
+            }
+        }
+        if (!anyDigits) {
+            return fallbackParseDouble(bytes, from, to);
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (mantissa < 1L << 53 && exponent >= -22 && exponent <= 22) {
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return fallbackParseDouble(bytes, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double fallbackParseDouble(ByteBuffer bytes, int from, int to) {
+        return Double.parseDouble(toString(bytes, from, to));
+    }
+
+    private static String toString(ByteBuffer bytes, int from, int to) {
+        byte[] array = new byte[to - from];
+        bytes.get(from, array);
+        return new String(array, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.brandontoner.mvo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A Collection of portfolios which satisfy the mean variance optimization constraints, ordered by mean.
+ * <p>
+ * For every pair (a, b) in the collection, where a != b, a.mean() < b.mean() <=> a.variance() < b.variance(). Adding
+ * a portfolio which is dominated by one in the collection is a noop, adding one which is not removes all the portfolios
+ * it dominates.
+ * </p>
+ */
+public interface EfficientFrontier extends Collection<Portfolio> {
+    /**
+     * Returns the element at the specified position, in order of increasing mean.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range ({@code index < 0 || index >= size()})
+     */
+    Portfolio get(int index);
+
+    /**
+     * Checks whether a point is dominated by the frontier, some portfolio has a mean at least as high and a variance at
+     * most as high. Adding a dominated portfolio fails, so callers can check before creating one.
+     *
+     * @param mean     mean
+     * @param variance variance
+     * @return true if dominated
+     */
+    boolean isDominated(double mean, double variance);
+
+    /**
+     * Merges a set into this frontier. Since no portfolio in a MeanVarianceSet dominates another, every portfolio
+     * added is still in this frontier afterwards.
+     *
+     * @param other set to merge into this one, not modified
+     * @return the portfolios of other which are in this frontier after the merge
+     */
+    default List<Portfolio> merge(MeanVarianceSet other) {
+        List<Portfolio> added = new ArrayList<>();
+        for (Portfolio portfolio : other) {
+            if (add(portfolio)) {
+                added.add(portfolio);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Gets an immutable copy of the frontier, ordered by mean. Implementations which support concurrent modification
+     * return a consistent copy even while other threads are adding.
+     *
+     * @return snapshot of the frontier
+     */
+    default List<Portfolio> snapshot() {
+        return List.copyOf(this);
+    }
+}
@@ -2,22 +2,22 @@ package com.brandontoner.mvo;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,8 +29,11 @@ import org.apache.logging.log4j.Logger;
 @Singleton
 public class FileTickerProvider implements Provider<List<Ticker>> {
     private static final Logger LOGGER = LogManager.getLogger();
-    private static final LocalDate HORIZON = LocalDate.now().minusYears(1);
+    /** First day to load prices for, in days since 1970-01-01. */
+    private static final int HORIZON = (int) LocalDate.now().minusYears(1).toEpochDay();
     private static final Pattern PATTERN = Pattern.compile("([A-Z]+)\\.csv");
+    /** Name of the file next to the CSVs which holds their parsed prices. */
+    private static final String PRICE_STORE = "prices.bin";
     private final Path path;
 
     @Inject
@@ -38,51 +41,133 @@ public class FileTickerProvider implements Provider<List<Ticker>> {
         this.path = path;
     }
 
-    private static Ticker handleResponse(String ticker, String body) {
-        List<String> lines = Arrays.asList(body.split("\\R"));
-        SortedMap<LocalDate, Double> dateToClosingPrice = new TreeMap<>();
-        for (String line : lines.subList(1, lines.size())) {
-            if (line.contains("null")) {
-                continue;
-            }
-            String[] parts = line.split(",");
-            LocalDate localDate = LocalDate.parse(parts[0]);
-            if (localDate.isBefore(HORIZON)) {
-                continue;
+    /**
+     * Aligns tickers on the dates they all have prices for, storing their prices in a single price matrix whose rows
+     * are ordered by ticker name. Each ticker is constructed once, over its row of the matrix.
+     *
+     * @param tickers input tickers
+     * @return list of tickers sorted by name
+     */
+    private static List<Ticker> reduceDateSet(List<PriceSeries> tickers) {
+        List<PriceSeries> sorted = new ArrayList<>(tickers);
+        sorted.sort(Comparator.comparing(PriceSeries::name));
+        int[] dates = intersect(sorted.stream().map(PriceSeries::epochDays).toList());
+        PriceMatrix priceMatrix = new PriceMatrix(sorted.size(), dates.length);
+        IntStream.range(0, sorted.size()).parallel().forEach(row -> {
+            PriceSeries series = sorted.get(row);
+            int[] epochDays = series.epochDays();
+            double[] values = new double[dates.length];
+            // dates is a subset of epochDays, walk both
+            for (int day = 0, i = 0; day < dates.length; day++, i++) {
+                while (epochDays[i] != dates[day]) {
+                    i++;
+                }
+                values[day] = series.closes()[i];
             }
-            dateToClosingPrice.put(localDate, Double.parseDouble(parts[4]));
+            priceMatrix.setRow(row, values);
+        });
+        List<Ticker> output = new ArrayList<>(sorted.size());
+        for (PriceSeries series : sorted) {
+            output.add(new Ticker(series.name(), dates, priceMatrix, output.size()));
         }
-        return new Ticker(ticker, dateToClosingPrice);
+        return output;
     }
 
     /**
-     * Reduces the set of dates for each ticker to the intersection.
+     * Intersects strictly increasing arrays in a single pass. Each value of the shortest array is looked up in the
+     * others by exponential search from where the previous lookup ended.
      *
-     * @param tickers input tickers
-     * @return list of tickers with modified values
+     * @param arrays strictly increasing arrays
+     * @return strictly increasing array of the values in every array, empty if there are no arrays
      */
-    private static List<Ticker> reduceDateSet(Iterable<? extends Ticker> tickers) {
-        Set<LocalDate> dates = new TreeSet<>();
-        for (Ticker ticker : tickers) {
-            dates.addAll(ticker.getClosingPrices().keySet());
+    static int[] intersect(List<int[]> arrays) {
+        if (arrays.isEmpty()) {
+            return new int[0];
         }
-        for (Ticker ticker : tickers) {
-            dates.retainAll(ticker.getClosingPrices().keySet());
+        int[][] sorted = arrays.toArray(int[][]::new);
+        Arrays.sort(sorted, Comparator.comparingInt(array -> array.length));
+        int[] shortest = sorted[0];
+        int[] positions = new int[sorted.length];
+        int[] output = new int[shortest.length];
+        int size = 0;
+        candidates:
+        for (int value : shortest) {
+            for (int j = 1; j < sorted.length; j++) {
+                int position = ceiling(sorted[j], positions[j], value);
+                positions[j] = position;
+                if (position == sorted[j].length) {
+                    break candidates;
+                }
+                if (sorted[j][position] != value) {
+                    continue candidates;
+                }
+            }
+            output[size++] = value;
         }
-        List<Ticker> output = new ArrayList<>();
-        for (Ticker ticker : tickers) {
-            SortedMap<LocalDate, Double> closingPrices = new TreeMap<>(ticker.getClosingPrices());
-            closingPrices.keySet().retainAll(dates);
-            output.add(new Ticker(ticker.getName(), closingPrices));
+        return Arrays.copyOf(output, size);
+    }
+
+    /**
+     * Finds the first index at or after from of a value greater than or equal to key.
+     *
+     * @return index, or array.length if none
+     */
+    private static int ceiling(int[] array, int from, int key) {
+        int bound = 1;
+        while (from + bound < array.length && array[from + bound - 1] < key) {
+            bound *= 2;
         }
-        output.sort(Comparator.comparing(Ticker::getName));
-        return output;
+        int index = Arrays.binarySearch(array, from, Math.min(from + bound, array.length), key);
+        return index >= 0 ? index : -(index + 1);
     }
 
-    protected String getTickerAsString(Path object) {
-        LOGGER.info("Loading file {}", object);
+    /**
+     * Gets the name of the ticker a file holds the prices of.
+     *
+     * @param file CSV file
+     * @return ticker name, or null if not a ticker file
+     */
+    private static String tickerName(Path file) {
+        Matcher matcher = PATTERN.matcher(file.getFileName().toString());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Gets all the closing prices of a ticker, from the price store if the CSV has not changed since it was stored,
+     * else by parsing the CSV.
+     *
+     * @param store  price store
+     * @param file   CSV file
+     * @param parsed incremented if the CSV is parsed
+     * @return closing prices and the CSV version they are from
+     */
+    private PriceStore.Entry load(PriceStore store, Path file, LongAdder parsed) {
+        String ticker = tickerName(file);
         try {
-            return Files.readString(object, StandardCharsets.UTF_8);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            PriceSeries series = store.get(ticker, size, lastModified);
+            if (series == null) {
+                LOGGER.debug("Loading file {}", file);
+                series = CsvPriceParser.parse(ticker, map(file));
+                parsed.increment();
+            }
+            return new PriceStore.Entry(series, size, lastModified);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps a file into memory.
+     *
+     * @param file file to map
+     * @return read only contents of the file
+     */
+    protected ByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -91,19 +176,43 @@ public class FileTickerProvider implements Provider<List<Ticker>> {
     @Override
     public List<Ticker> get() {
         LOGGER.info("Listing contents of {}", path);
+        MvoEvents.TickerLoad event = new MvoEvents.TickerLoad();
+        event.begin();
         try {
+            List<Path> files;
             try (Stream<Path> list = Files.list(path)) {
-                List<Ticker> output = list.filter(Files::isRegularFile).map(file -> {
-                    Matcher matcher = PATTERN.matcher(file.getFileName().toString());
-                    if (!matcher.matches()) {
-                        return null;
-                    }
-                    String ticker = matcher.group(1);
-                    String string = getTickerAsString(file);
-                    return FileTickerProvider.handleResponse(ticker, string);
-                }).filter(Objects::nonNull).collect(Collectors.toList());
-                return FileTickerProvider.reduceDateSet(output);
+                files = list.filter(Files::isRegularFile)
+                            .filter(file -> tickerName(file) != null)
+                            .toList();
+            }
+            final long startTimeNs = System.nanoTime();
+            Path storePath = path.resolve(PRICE_STORE);
+            PriceStore store = PriceStore.open(storePath);
+            LongAdder parsed = new LongAdder();
+            List<PriceStore.Entry> entries = files.parallelStream().map(file -> load(store, file, parsed)).toList();
+            if (parsed.sum() > 0 || store.size() != entries.size()) {
+                try {
+                    PriceStore.write(storePath, entries);
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to write price store {}", storePath, e);
+                }
+            }
+            // the store holds every date, the horizon moves
+            List<PriceSeries> output = entries.stream().map(entry -> entry.series().since(HORIZON)).toList();
+            long endTimeNs = System.nanoTime();
+            LOGGER.info("Loaded {} tickers, {} parsed from CSV, in {} seconds",
+                        output.size(),
+                        parsed.sum(),
+                        (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1));
+            List<Ticker> tickers = FileTickerProvider.reduceDateSet(output);
+            if (event.shouldCommit()) {
+                event.files = files.size();
+                event.parsed = parsed.sum();
+                event.tickers = tickers.size();
+                event.days = tickers.isEmpty() ? 0 : tickers.get(0).getPriceMatrix().dayCount();
+                event.commit();
             }
+            return tickers;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -0,0 +1,46 @@
+package com.brandontoner.mvo;
+
+import java.io.IOException;
+
+/**
+ * Persists the frontier between runs.
+ */
+public interface FrontierSerializer {
+    /**
+     * Writes portfolios to disk, replacing what was written before.
+     *
+     * @param portfolios portfolios to write, ordered by mean as in an {@link EfficientFrontier}
+     * @throws IOException on error writing
+     */
+    void writeTo(Iterable<Portfolio> portfolios) throws IOException;
+
+    /**
+     * Reads portfolios from disk. Portfolios holding a ticker which is not in tickers are dropped.
+     *
+     * @param tickers array of tickers sorted by name
+     * @return mean variance set, empty if nothing could be read
+     */
+    MeanVarianceSet load(Ticker[] tickers);
+
+    /**
+     * Hashes the names and prices of tickers. Changes if any ticker is added, removed or renamed, or any price changes.
+     * Stored statistics can be reused as long as the fingerprint of the tickers they were computed with matches.
+     *
+     * @param tickers tickers
+     * @return fingerprint
+     */
+    static long fingerprint(Ticker[] tickers) {
+        long hash = tickers.length;
+        for (Ticker ticker : tickers) {
+            hash = (hash ^ ticker.getName().hashCode()) * 0x9E3779B97F4A7C15L;
+            double[] prices = ticker.getPriceMatrix().prices();
+            int offset = ticker.getOffset();
+            int dayCount = ticker.getPriceMatrix().dayCount();
+            hash = (hash ^ dayCount) * 0x9E3779B97F4A7C15L;
+            for (int day = 0; day < dayCount; day++) {
+                hash = (hash ^ Double.doubleToLongBits(prices[offset + day])) * 0x9E3779B97F4A7C15L;
+            }
+        }
+        return hash ^ (hash >>> 32);
+    }
+}
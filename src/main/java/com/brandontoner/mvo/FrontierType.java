@@ -0,0 +1,43 @@
+package com.brandontoner.mvo;
+
+import java.util.function.Supplier;
+
+/**
+ * The {@link EfficientFrontier} implementations the {@link Optimizer} can search with.
+ */
+public enum FrontierType {
+    /** Sorted array list, see MeanVarianceSet. */
+    ARRAY(MeanVarianceSet::new, false),
+    /** Balanced tree with O(log n) inserts for large frontiers, see TreeMeanVarianceSet. */
+    TREE(TreeMeanVarianceSet::new, false),
+    /** Thread safe skip list which search workers add to directly, see ConcurrentMeanVarianceSet. */
+    CONCURRENT(ConcurrentMeanVarianceSet::new, true),
+    /** Parallel primitive arrays with a flat counts pool for very large frontiers, see CompactMeanVarianceSet. */
+    COMPACT(CompactMeanVarianceSet::new, false);
+
+    private final Supplier<EfficientFrontier> supplier;
+    private final boolean concurrent;
+
+    FrontierType(Supplier<EfficientFrontier> supplier, boolean concurrent) {
+        this.supplier = supplier;
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * Creates an empty frontier of this type.
+     *
+     * @return new frontier
+     */
+    public EfficientFrontier create() {
+        return supplier.get();
+    }
+
+    /**
+     * Whether frontiers of this type can be added to by many threads at once.
+     *
+     * @return true if thread safe
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+}
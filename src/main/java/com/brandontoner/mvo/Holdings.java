@@ -0,0 +1,222 @@
+package com.brandontoner.mvo;
+
+import java.util.Arrays;
+
+/**
+ * The nonzero counts of a portfolio: the indices of the tickers it holds, in increasing order, and the count of each.
+ * <p>
+ * Portfolios on the frontier hold a few dozen tickers of a universe of thousands, so walking their holdings rather
+ * than a count per ticker makes evaluating, moving and writing them scale with what they hold. Immutable.
+ * </p>
+ */
+public final class Holdings {
+    private static final Holdings EMPTY = new Holdings(new int[0], new int[0]);
+    /** Indices of the held tickers, strictly increasing. */
+    private final int[] indices;
+    /** Count of each held ticker, never 0. */
+    private final int[] counts;
+
+    private Holdings(int[] indices, int[] counts) {
+        this.indices = indices;
+        this.counts = counts;
+    }
+
+    /**
+     * Gets the holdings of a count array.
+     *
+     * @param counts count of each ticker
+     * @return holdings
+     */
+    public static Holdings of(int[] counts) {
+        int size = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                size++;
+            }
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        int[] indices = new int[size];
+        int[] heldCounts = new int[size];
+        for (int i = 0, held = 0; held < size; i++) {
+            if (counts[i] != 0) {
+                indices[held] = i;
+                heldCounts[held] = counts[i];
+                held++;
+            }
+        }
+        return new Holdings(indices, heldCounts);
+    }
+
+    /**
+     * Gets holdings from (index, count) pairs in any order. Counts of the same index are summed, zeros are dropped.
+     *
+     * @param indices ticker indices, not modified
+     * @param counts  count of each index, not modified
+     * @param size    number of pairs to read
+     * @return holdings
+     */
+    static Holdings of(int[] indices, int[] counts, int size) {
+        long[] pairs = new long[size];
+        for (int i = 0; i < size; i++) {
+            pairs[i] = (long) indices[i] << 32 | (counts[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs);
+        int[] heldIndices = new int[size];
+        int[] heldCounts = new int[size];
+        int held = 0;
+        for (long pair : pairs) {
+            int index = (int) (pair >>> 32);
+            if (held > 0 && heldIndices[held - 1] == index) {
+                heldCounts[held - 1] += (int) pair;
+            } else {
+                heldIndices[held] = index;
+                heldCounts[held] = (int) pair;
+                held++;
+            }
+            if (heldCounts[held - 1] == 0) {
+                held--;
+            }
+        }
+        return held == 0 ? EMPTY : new Holdings(Arrays.copyOf(heldIndices, held), Arrays.copyOf(heldCounts, held));
+    }
+
+    /**
+     * Gets holdings from pairs already in order, as stored by {@link #index(int)} and {@link #count(int)}.
+     *
+     * @param indices ticker indices, strictly increasing, owned by the holdings
+     * @param counts  count of each index, never 0, owned by the holdings
+     * @return holdings
+     */
+    static Holdings ofSorted(int[] indices, int[] counts) {
+        return indices.length == 0 ? EMPTY : new Holdings(indices, counts);
+    }
+
+    /**
+     * Gets the number of tickers held.
+     *
+     * @return number of tickers held
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * Gets the index of a held ticker.
+     *
+     * @param position position among the holdings, 0 to size() - 1
+     * @return index of the ticker in the universe
+     */
+    public int index(int position) {
+        return indices[position];
+    }
+
+    /**
+     * Gets the count of a held ticker.
+     *
+     * @param position position among the holdings, 0 to size() - 1
+     * @return count of the ticker, never 0
+     */
+    public int count(int position) {
+        return counts[position];
+    }
+
+    /**
+     * Gets the count of a ticker.
+     *
+     * @param index index of the ticker in the universe
+     * @return count of the ticker, 0 if not held
+     */
+    public int countOf(int index) {
+        int position = Arrays.binarySearch(indices, index);
+        return position < 0 ? 0 : counts[position];
+    }
+
+    /**
+     * Gets the count of each ticker of the universe.
+     *
+     * @param width number of tickers in the universe
+     * @return new count array
+     */
+    public int[] toCounts(int width) {
+        int[] output = new int[width];
+        for (int i = 0; i < indices.length; i++) {
+            output[indices[i]] = counts[i];
+        }
+        return output;
+    }
+
+    /**
+     * Gets the holdings with {@code k} units moved from one ticker to another, in O(size()).
+     *
+     * @param from index of the ticker units are taken from, must hold at least {@code k}
+     * @param to   index of the ticker units are given to
+     * @param k    number of units to move
+     * @return new holdings
+     */
+    public Holdings move(int from, int to, int k) {
+        int fromPosition = Arrays.binarySearch(indices, from);
+        if (fromPosition < 0 || counts[fromPosition] < k) {
+            throw new IllegalArgumentException("Cannot move %s units of ticker %s from %s".formatted(k, from, this));
+        }
+        int toPosition = Arrays.binarySearch(indices, to);
+        boolean removesFrom = counts[fromPosition] == k;
+        boolean addsTo = toPosition < 0;
+        int size = indices.length - (removesFrom ? 1 : 0) + (addsTo ? 1 : 0);
+        int[] movedIndices = new int[size];
+        int[] movedCounts = new int[size];
+        int moved = 0;
+        for (int i = 0; i <= indices.length; i++) {
+            if (addsTo && i == -(toPosition + 1)) {
+                movedIndices[moved] = to;
+                movedCounts[moved] = k;
+                moved++;
+            }
+            if (i == indices.length) {
+                break;
+            }
+            if (i == fromPosition) {
+                if (removesFrom) {
+                    continue;
+                }
+                movedIndices[moved] = from;
+                movedCounts[moved] = counts[i] - k;
+            } else {
+                movedIndices[moved] = indices[i];
+                movedCounts[moved] = i == toPosition ? counts[i] + k : counts[i];
+            }
+            moved++;
+        }
+        return new Holdings(movedIndices, movedCounts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Holdings holdings = (Holdings) o;
+        return Arrays.equals(indices, holdings.indices) && Arrays.equals(counts, holdings.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(indices) + Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder("Holdings{");
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0) {
+                output.append(", ");
+            }
+            output.append(indices[i]).append('=').append(counts[i]);
+        }
+        return output.append('}').toString();
+    }
+}
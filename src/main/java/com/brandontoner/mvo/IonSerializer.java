@@ -5,132 +5,461 @@ import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import software.amazon.ion.IonInt;
+import software.amazon.ion.IonException;
 import software.amazon.ion.IonReader;
-import software.amazon.ion.IonStruct;
 import software.amazon.ion.IonSystem;
 import software.amazon.ion.IonType;
-import software.amazon.ion.IonValue;
 import software.amazon.ion.IonWriter;
 
+/**
+ * Persists the frontier as a full snapshot, {@code cache.ion}, plus an append-only journal of changes since the
+ * snapshot, {@code cache.journal.ion}.
+ * <p>
+ * The snapshot starts with a {@code header::{generation: g, fingerprint: f}} struct followed by one struct per
+ * portfolio. Each
+ * checkpoint after the first appends a single {@code journal::{generation: g, removed: [means], added: [portfolios]}}
+ * struct to the journal, so checkpoint I/O is proportional to how much the frontier changed. Once the journal is
+ * larger than the snapshot, the next checkpoint writes a new snapshot with a new generation and deletes the journal.
+ * Journal entries of another generation, left behind if the process died while compacting, are ignored, as is a
+ * truncated last entry. Each append starts at the journal's last good length, so an append which failed partway
+ * leaves no torn entry in front of later ones.
+ * </p>
+ * <p>
+ * The fingerprint is a hash of the names and prices of the tickers. If it matches on load, the stored means and
+ * variances are used as is, otherwise they are recomputed in parallel.
+ * </p>
+ */
 @Singleton
-public class IonSerializer {
+public class IonSerializer implements FrontierSerializer {
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final String HEADER = "header";
+    private static final String JOURNAL = "journal";
     private final IonSystem ionSystem;
     private final Path outputDir;
     private final Path path;
+    private final Path journalPath;
+    /** Portfolios on disk, in snapshot plus journal, ordered by mean. Null if unknown. */
+    private List<Portfolio> written;
+    private long generation;
+    private long snapshotBytes;
+    private long journalBytes;
+    /** Tickers the fingerprint was last computed for. */
+    private Ticker[] fingerprinted;
+    private long fingerprint;
 
     @Inject
     IonSerializer(IonSystem ionSystem, @Named("outputDir") Path outputDir) {
         this.ionSystem = ionSystem;
         this.outputDir = outputDir;
         path = outputDir.resolve("cache.ion");
+        journalPath = outputDir.resolve("cache.journal.ion");
     }
 
     /**
-     * Writes portfolios to disk.
+     * Writes portfolios to disk. Appends the changes since the last write to the journal, or writes a full snapshot if
+     * nothing has been written yet or the journal has outgrown the snapshot.
      *
-     * @param portfolios iterable of portfolios to write
+     * @param portfolios portfolios to write, ordered by mean as in an {@link EfficientFrontier}
      * @throws IOException on error writing
      */
-    public void writeTo(Iterable<Portfolio> portfolios) throws IOException {
-        long startTimeNs = System.nanoTime();
-        Path temp = Files.createTempFile(outputDir, "cache.", ".ion.temp");
-        int written = 0;
-        try (OutputStream outputStream = Files.newOutputStream(temp);
-             BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-             IonWriter ionWriter = ionSystem.newBinaryWriter(bufferedOutputStream)) {
-            for (Portfolio portfolio : portfolios) {
-                ionWriter.stepIn(IonType.STRUCT);
-
-                ionWriter.setFieldName("mean");
-                ionWriter.writeFloat(portfolio.mean());
-
-                ionWriter.setFieldName("variance");
-                ionWriter.writeFloat(portfolio.variance());
+    @Override
+    public synchronized void writeTo(Iterable<Portfolio> portfolios) throws IOException {
+        List<Portfolio> current = new ArrayList<>();
+        portfolios.forEach(current::add);
+        if (written == null || journalBytes > snapshotBytes) {
+            writeSnapshot(current);
+        } else {
+            appendJournal(current);
+        }
+        written = current;
+    }
 
-                ionWriter.setFieldName("counts");
+    private void writeSnapshot(List<Portfolio> portfolios) throws IOException {
+        MvoEvents.CacheWrite event = new MvoEvents.CacheWrite();
+        event.begin();
+        final long startTimeNs = System.nanoTime();
+        long newGeneration = ThreadLocalRandom.current().nextLong();
+        Path temp = Files.createTempFile(outputDir, "cache.", ".ion.temp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temp);
+                 BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+                 IonWriter ionWriter = ionSystem.newBinaryWriter(bufferedOutputStream)) {
+                ionWriter.setTypeAnnotations(HEADER);
                 ionWriter.stepIn(IonType.STRUCT);
-                Ticker[] tickers = portfolio.tickers();
-                int[] counts = portfolio.counts();
-                for (int i = 0; i < tickers.length; i++) {
-                    if (counts[i] != 0) {
-                        ionWriter.setFieldName(tickers[i].getName());
-                        ionWriter.writeInt(counts[i]);
-                    }
+                ionWriter.setFieldName("generation");
+                ionWriter.writeInt(newGeneration);
+                if (!portfolios.isEmpty()) {
+                    ionWriter.setFieldName("fingerprint");
+                    ionWriter.writeInt(fingerprint(portfolios.get(0).tickers()));
                 }
                 ionWriter.stepOut();
 
-                ionWriter.stepOut();
-                written++;
+                for (Portfolio portfolio : portfolios) {
+                    writePortfolio(ionWriter, portfolio);
+                }
             }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // the journal belongs to the old generation, load ignores it if this fails
+        Files.deleteIfExists(journalPath);
+        generation = newGeneration;
+        snapshotBytes = Files.size(path);
+        journalBytes = 0;
+        if (event.shouldCommit()) {
+            event.format = "ion snapshot";
+            event.entries = portfolios.size();
+            event.bytes = snapshotBytes;
+            event.commit();
         }
-        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         long endTimeNs = System.nanoTime();
         LOGGER.info("Wrote {} entries ({} bytes) to {} in {} seconds",
-                    written,
-                    Files.size(path),
+                    portfolios.size(),
+                    snapshotBytes,
                     path,
                     (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1));
     }
 
+    private void appendJournal(List<Portfolio> portfolios) throws IOException {
+        MvoEvents.CacheWrite event = new MvoEvents.CacheWrite();
+        event.begin();
+        final long startTimeNs = System.nanoTime();
+        List<Portfolio> added = new ArrayList<>();
+        List<Portfolio> removed = new ArrayList<>();
+        diff(written, portfolios, added, removed);
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(
+                     Channels.newOutputStream(channel.truncate(journalBytes).position(journalBytes)));
+             IonWriter ionWriter = ionSystem.newBinaryWriter(bufferedOutputStream)) {
+            // a single value per checkpoint, so a torn append fails to parse as a whole, and the next append
+            // overwrites it from the last good length
+            ionWriter.setTypeAnnotations(JOURNAL);
+            ionWriter.stepIn(IonType.STRUCT);
+            ionWriter.setFieldName("generation");
+            ionWriter.writeInt(generation);
+
+            ionWriter.setFieldName("removed");
+            ionWriter.stepIn(IonType.LIST);
+            for (Portfolio portfolio : removed) {
+                ionWriter.writeFloat(portfolio.mean());
+            }
+            ionWriter.stepOut();
+
+            ionWriter.setFieldName("added");
+            ionWriter.stepIn(IonType.LIST);
+            for (Portfolio portfolio : added) {
+                writePortfolio(ionWriter, portfolio);
+            }
+            ionWriter.stepOut();
+
+            ionWriter.stepOut();
+        }
+        long previousBytes = journalBytes;
+        journalBytes = Files.size(journalPath);
+        if (event.shouldCommit()) {
+            event.format = "ion journal";
+            event.entries = added.size() + removed.size();
+            event.bytes = journalBytes - previousBytes;
+            event.commit();
+        }
+        long endTimeNs = System.nanoTime();
+        LOGGER.info("Appended {} added and {} removed entries ({} bytes) to {} in {} seconds",
+                    added.size(),
+                    removed.size(),
+                    journalBytes - previousBytes,
+                    journalPath,
+                    (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1));
+    }
+
     /**
-     * Reads portfolios from disk.
+     * Finds the changes between two lists of portfolios ordered by mean.
+     *
+     * @param before  portfolios before
+     * @param after   portfolios after
+     * @param added   output, portfolios in after but not before
+     * @param removed output, portfolios in before but not after, except those replaced by one with the same mean
+     */
+    static void diff(List<Portfolio> before, List<Portfolio> after, List<Portfolio> added, List<Portfolio> removed) {
+        int i = 0;
+        int j = 0;
+        while (i < before.size() || j < after.size()) {
+            if (j == after.size()) {
+                removed.add(before.get(i++));
+            } else if (i == before.size()) {
+                added.add(after.get(j++));
+            } else {
+                Portfolio a = before.get(i);
+                Portfolio b = after.get(j);
+                int compare = Double.compare(a.mean(), b.mean());
+                if (compare < 0) {
+                    removed.add(a);
+                    i++;
+                } else if (compare > 0) {
+                    added.add(b);
+                    j++;
+                } else {
+                    // adding an entry replaces any with the same mean
+                    if (!a.equals(b)) {
+                        added.add(b);
+                    }
+                    i++;
+                    j++;
+                }
+            }
+        }
+    }
+
+    private static void writePortfolio(IonWriter ionWriter, Portfolio portfolio) throws IOException {
+        ionWriter.stepIn(IonType.STRUCT);
+
+        ionWriter.setFieldName("mean");
+        ionWriter.writeFloat(portfolio.mean());
+
+        ionWriter.setFieldName("variance");
+        ionWriter.writeFloat(portfolio.variance());
+
+        ionWriter.setFieldName("counts");
+        ionWriter.stepIn(IonType.STRUCT);
+        Ticker[] tickers = portfolio.tickers();
+        Holdings holdings = portfolio.holdings();
+        for (int i = 0; i < holdings.size(); i++) {
+            ionWriter.setFieldName(tickers[holdings.index(i)].getName());
+            ionWriter.writeInt(holdings.count(i));
+        }
+        ionWriter.stepOut();
+
+        ionWriter.stepOut();
+    }
+
+    /**
+     * Gets the fingerprint of tickers, cached for the last array.
+     */
+    private synchronized long fingerprint(Ticker[] tickers) {
+        if (tickers != fingerprinted) {
+            fingerprint = FrontierSerializer.fingerprint(tickers);
+            fingerprinted = tickers;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Reads portfolios from disk, replaying the journal over the snapshot.
      *
      * @param tickers array of tickers sorted by name
      * @return mean variance set
      */
+    @Override
     public MeanVarianceSet load(Ticker[] tickers) {
-        String[] tickerNames = Arrays.stream(tickers).map(Ticker::getName).toArray(String[]::new);
-        long startTimeNs = System.nanoTime();
+        MvoEvents.CacheLoad event = new MvoEvents.CacheLoad();
+        event.begin();
+        final long startTimeNs = System.nanoTime();
         MeanVarianceSet output = new MeanVarianceSet();
-        int read = 0;
+        Loader loader = new Loader(tickers);
         try (InputStream inputStream = Files.newInputStream(path);
              BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
              IonReader reader = ionSystem.newReader(bufferedInputStream)) {
-            for (Iterator<IonValue> iterator = ionSystem.iterate(reader); iterator.hasNext(); ) {
-                IonStruct portfolio = (IonStruct) iterator.next();
-                int[] countArray = new int[tickers.length];
-
-                boolean valid = true;
-                for (IonValue count : (IonStruct) portfolio.get("counts")) {
-                    int index = Arrays.binarySearch(tickerNames, count.getFieldName());
-                    if (index < 0) {
-                        valid = false;
-                        break;
-                    }
-                    countArray[index] += ((IonInt) count).intValue();
-                }
-
-                if (valid) {
-                    output.add(PortfolioFactory.get(tickers, countArray));
-                }
-                read++;
-
-            }
-            Files.copy(path, outputDir.resolve("cache." + path.toFile().lastModified() + ".ion"));
+            loader.readSnapshot(reader);
         } catch (Exception e) {
             LOGGER.error("Failed to load cache file", e);
             return output;
         }
+        if (loader.snapshotGeneration != null && Files.exists(journalPath)) {
+            try (InputStream inputStream = Files.newInputStream(journalPath);
+                 BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+                 IonReader reader = ionSystem.newReader(bufferedInputStream)) {
+                loader.readJournal(reader);
+            } catch (IonException e) {
+                LOGGER.warn("Ignoring truncated journal {}", journalPath, e);
+            } catch (Exception e) {
+                LOGGER.error("Failed to load journal file", e);
+            }
+        }
+        Stream<Portfolio> valid = loader.entries.values().stream().filter(portfolio -> portfolio.holdings() != null);
+        if (loader.trusted) {
+            output.addAll(valid.toList());
+        } else {
+            // stored statistics are from other prices, recompute them
+            output.addAll(PortfolioFactory.getAll(tickers, valid.map(Portfolio::holdings).toList()));
+        }
+        if (event.shouldCommit()) {
+            event.format = "ion";
+            event.entries = loader.read;
+            event.valid = output.size();
+            event.bytes = path.toFile().length() + journalPath.toFile().length();
+            event.statisticsReused = loader.trusted;
+            event.commit();
+        }
         long endTimeNs = System.nanoTime();
-        LOGGER.info("Read {} entries, {} valid ({} bytes) from {} in {} seconds",
-                    read,
+        LOGGER.info("Read {} entries, {} valid ({} bytes) from {} in {} seconds, statistics {}",
+                    loader.read,
                     output.size(),
-                    path.toFile().length(),
+                    path.toFile().length() + journalPath.toFile().length(),
                     path,
-                    (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1));
+                    (endTimeNs - startTimeNs) * 1.0 / TimeUnit.SECONDS.toNanos(1),
+                    loader.trusted ? "reused" : "recomputed");
         return output;
     }
+
+    /**
+     * Streams a snapshot and its journal into a map of portfolios.
+     */
+    private final class Loader {
+        private final Ticker[] tickers;
+        private final Map<String, Integer> tickerIndices = new HashMap<>();
+        /** Map of stored mean to portfolio, the portfolio statistics are only valid if trusted. */
+        private final NavigableMap<Double, Portfolio> entries = new TreeMap<>();
+        private Long snapshotGeneration;
+        private boolean trusted;
+        private int read;
+        /** Indices and counts of the portfolio being read, reused between portfolios. */
+        private int[] heldIndices = new int[16];
+        private int[] heldCounts = new int[16];
+
+        private Loader(Ticker[] tickers) {
+            this.tickers = tickers;
+            for (int i = 0; i < tickers.length; i++) {
+                tickerIndices.put(tickers[i].getName(), i);
+            }
+        }
+
+        private void readSnapshot(IonReader reader) {
+            while (reader.next() != null) {
+                if (Arrays.asList(reader.getTypeAnnotations()).contains(HEADER)) {
+                    readHeader(reader);
+                } else {
+                    put(readPortfolio(reader));
+                    read++;
+                }
+            }
+        }
+
+        private void readHeader(IonReader reader) {
+            reader.stepIn();
+            while (reader.next() != null) {
+                switch (reader.getFieldName()) {
+                    case "generation" -> snapshotGeneration = reader.longValue();
+                    case "fingerprint" -> trusted = reader.longValue() == fingerprint(tickers);
+                    default -> {
+                        // unknown field, skip
+                    }
+                }
+            }
+            reader.stepOut();
+        }
+
+        /**
+         * Reads journal entries, applying each entry of the snapshot generation once it has been read completely.
+         */
+        private void readJournal(IonReader reader) {
+            List<Double> removed = new ArrayList<>();
+            List<Portfolio> added = new ArrayList<>();
+            while (reader.next() != null) {
+                removed.clear();
+                added.clear();
+                long journalGeneration = 0;
+                reader.stepIn();
+                while (reader.next() != null) {
+                    switch (reader.getFieldName()) {
+                        case "generation" -> journalGeneration = reader.longValue();
+                        case "removed" -> {
+                            reader.stepIn();
+                            while (reader.next() != null) {
+                                removed.add(reader.doubleValue());
+                            }
+                            reader.stepOut();
+                        }
+                        case "added" -> {
+                            reader.stepIn();
+                            while (reader.next() != null) {
+                                added.add(readPortfolio(reader));
+                            }
+                            reader.stepOut();
+                        }
+                        default -> {
+                            // unknown field, skip
+                        }
+                    }
+                }
+                reader.stepOut();
+                if (journalGeneration == snapshotGeneration) {
+                    removed.forEach(entries::remove);
+                    added.forEach(this::put);
+                    read += removed.size() + added.size();
+                }
+            }
+        }
+
+        /**
+         * Reads a portfolio struct.
+         *
+         * @return portfolio, without holdings if it holds a ticker which is not in the universe
+         */
+        private Portfolio readPortfolio(IonReader reader) {
+            double mean = Double.NaN;
+            double variance = Double.NaN;
+            int held = 0;
+            boolean valid = true;
+            reader.stepIn();
+            while (reader.next() != null) {
+                switch (reader.getFieldName()) {
+                    case "mean" -> mean = reader.doubleValue();
+                    case "variance" -> variance = reader.doubleValue();
+                    case "counts" -> {
+                        reader.stepIn();
+                        while (reader.next() != null) {
+                            Integer index = tickerIndices.get(reader.getFieldName());
+                            if (index == null) {
+                                valid = false;
+                            } else {
+                                if (held == heldIndices.length) {
+                                    heldIndices = Arrays.copyOf(heldIndices, held * 2);
+                                    heldCounts = Arrays.copyOf(heldCounts, held * 2);
+                                }
+                                heldIndices[held] = index;
+                                heldCounts[held] = reader.intValue();
+                                held++;
+                            }
+                        }
+                        reader.stepOut();
+                    }
+                    default -> {
+                        // unknown field, skip
+                    }
+                }
+            }
+            reader.stepOut();
+            // keyed by mean so removals find it, even if it has no valid counts
+            return new Portfolio(tickers, valid ? Holdings.of(heldIndices, heldCounts, held) : null, mean, variance);
+        }
+
+        private void put(Portfolio portfolio) {
+            entries.put(portfolio.mean(), portfolio);
+        }
+    }
 }
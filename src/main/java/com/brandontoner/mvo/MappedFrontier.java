@@ -0,0 +1,219 @@
+package com.brandontoner.mvo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read only view of a frontier file written by {@link BinaryFrontierSerializer}, mapped into memory or read into
+ * the heap.
+ * <p>
+ * Opening only reads the header. Means and variances are read from fixed width columns and counts are decoded on
+ * demand, so the frontier can be binary searched by mean without deserializing it. Thread safe, files are limited to
+ * 2 GiB.
+ * </p>
+ */
+public final class MappedFrontier {
+    private final ByteBuffer buffer;
+    private final long fingerprint;
+    private final List<String> tickerNames;
+    private final int size;
+    private final int meansOffset;
+    private final int variancesOffset;
+    private final int countOffsetsOffset;
+    private final int countsOffset;
+
+    private MappedFrontier(ByteBuffer buffer) {
+        this.buffer = buffer;
+        int position = 0;
+        if (buffer.getInt(position) != BinaryFrontierSerializer.MAGIC) {
+            throw new IllegalArgumentException("Not a frontier file");
+        }
+        position += Integer.BYTES;
+        int version = buffer.getInt(position);
+        if (version != BinaryFrontierSerializer.VERSION) {
+            throw new IllegalArgumentException("Unsupported frontier file version " + version);
+        }
+        position += Integer.BYTES;
+        fingerprint = buffer.getLong(position);
+        position += Long.BYTES;
+        int tickerCount = buffer.getInt(position);
+        position += Integer.BYTES;
+        List<String> names = new ArrayList<>(tickerCount);
+        for (int i = 0; i < tickerCount; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            position += Short.BYTES;
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            names.add(new String(bytes, StandardCharsets.UTF_8));
+            position += length;
+        }
+        tickerNames = Collections.unmodifiableList(names);
+        size = buffer.getInt(position);
+        position += Integer.BYTES;
+        meansOffset = position;
+        variancesOffset = meansOffset + size * Double.BYTES;
+        countOffsetsOffset = variancesOffset + size * Double.BYTES;
+        countsOffset = countOffsetsOffset + (size + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Maps a frontier file into memory.
+     *
+     * @param path file written by {@link BinaryFrontierSerializer}
+     * @return mapped frontier
+     * @throws IOException on error reading
+     */
+    public static MappedFrontier open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new MappedFrontier(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a frontier file into the heap. Unlike {@link #open(Path)} this holds no mapping of the file, which on
+     * Windows would keep it from being replaced until the mapping is garbage collected.
+     *
+     * @param path file written by {@link BinaryFrontierSerializer}
+     * @return frontier
+     * @throws IOException on error reading
+     */
+    public static MappedFrontier read(Path path) throws IOException {
+        return new MappedFrontier(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * Gets the fingerprint of the tickers the statistics were computed with.
+     *
+     * @return fingerprint
+     * @see FrontierSerializer#fingerprint(Ticker[])
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the names of the tickers counts refer to, by index.
+     *
+     * @return unmodifiable list of ticker names
+     */
+    public List<String> tickerNames() {
+        return tickerNames;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double mean(int index) {
+        return buffer.getDouble(meansOffset + checkIndex(index) * Double.BYTES);
+    }
+
+    public double variance(int index) {
+        return buffer.getDouble(variancesOffset + checkIndex(index) * Double.BYTES);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index %s out of bounds for length %s".formatted(index, size));
+        }
+        return index;
+    }
+
+    /**
+     * Searches for a mean, as {@link java.util.Arrays#binarySearch(double[], double)}.
+     *
+     * @param mean mean to search for
+     * @return index of the mean, or (-(insertion point) - 1) if not present
+     */
+    public int indexOfMean(double mean) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = Double.compare(mean(mid), mean);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Checks whether a point is dominated by the frontier, some portfolio has a mean at least as high and a variance
+     * at most as high.
+     *
+     * @param mean     mean
+     * @param variance variance
+     * @return true if dominated
+     */
+    public boolean isDominated(double mean, double variance) {
+        int index = indexOfMean(mean);
+        int ceiling = index >= 0 ? index : -(index + 1);
+        return ceiling < size && variance(ceiling) <= variance;
+    }
+
+    /**
+     * Decodes the counts of a portfolio, indexed as {@link #tickerNames()}.
+     *
+     * @param index index of the portfolio
+     * @return counts
+     */
+    public int[] counts(int index) {
+        int[] identity = new int[tickerNames.size()];
+        for (int i = 0; i < identity.length; i++) {
+            identity[i] = i;
+        }
+        return holdings(index, identity).toCounts(identity.length);
+    }
+
+    /**
+     * Decodes the holdings of a portfolio, remapping ticker indexes.
+     *
+     * @param index     index of the portfolio
+     * @param tickerMap index in the output of each ticker of {@link #tickerNames()}, -1 if not present
+     * @return holdings, or null if the portfolio holds a ticker which is mapped to -1
+     */
+    Holdings holdings(int index, int[] tickerMap) {
+        int[] position = {countsOffset + buffer.getInt(countOffsetsOffset + checkIndex(index) * Integer.BYTES)};
+        int nonZero = readVarint(position);
+        int[] indices = new int[nonZero];
+        int[] counts = new int[nonZero];
+        int ticker = 0;
+        for (int i = 0; i < nonZero; i++) {
+            ticker += readVarint(position);
+            counts[i] = readVarint(position);
+            indices[i] = tickerMap[ticker];
+            if (indices[i] < 0) {
+                return null;
+            }
+        }
+        return Holdings.of(indices, counts, nonZero);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint, advancing the position.
+     */
+    private int readVarint(int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.brandontoner.mvo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -17,7 +18,7 @@ import javax.annotation.Nonnull;
  * For every pair (a, b) in the collection, where a != b, a.mean() < b.mean() <=> a.variance() < b.variance()
  * </p>
  */
-public class MeanVarianceSet implements Collection<Portfolio> {
+public class MeanVarianceSet implements EfficientFrontier {
     /** Backing list. */
     private final List<Portfolio> portfolios = new ArrayList<>();
 
@@ -59,13 +60,7 @@ public class MeanVarianceSet implements Collection<Portfolio> {
         return portfolios.toArray(a);
     }
 
-    /**
-     * Returns the element at the specified position in this list.
-     *
-     * @param index index of the element to return
-     * @return the element at the specified position in this list
-     * @throws IndexOutOfBoundsException if the index is out of range ({@code index < 0 || index >= size()})
-     */
+    @Override
     public Portfolio get(int index) {
         return portfolios.get(index);
     }
@@ -77,6 +72,7 @@ public class MeanVarianceSet implements Collection<Portfolio> {
             Portfolio other = portfolios.get(index);
             if (portfolio.variance() < other.variance()) {
                 portfolios.set(index, portfolio);
+                removeDominated(index, portfolio.variance());
                 return true;
             } else {
                 return false;
@@ -87,15 +83,7 @@ public class MeanVarianceSet implements Collection<Portfolio> {
             Portfolio other = portfolios.get(index - 1);
             if (portfolio.variance() <= other.variance()) {
                 portfolios.set(index - 1, portfolio);
-                while (index - 2 >= 0) {
-                    Portfolio p = portfolios.get(index - 2);
-                    if (portfolio.variance() <= p.variance()) {
-                        portfolios.remove(index - 2);
-                        index--;
-                    } else {
-                        break;
-                    }
-                }
+                removeDominated(index - 1, portfolio.variance());
                 return true;
             }
         }
@@ -109,51 +97,91 @@ public class MeanVarianceSet implements Collection<Portfolio> {
         return true;
     }
 
+    @Override
+    public boolean isDominated(double mean, double variance) {
+        int index = binarySearch(portfolios, mean, Portfolio::mean);
+        // the portfolio with the lowest mean at least as high has the lowest variance of all such portfolios
+        int ceiling = index >= 0 ? index : -(index + 1);
+        return ceiling < portfolios.size() && portfolios.get(ceiling).variance() <= variance;
+    }
+
     /**
-     * Adds a portfolio to the set. Avoids allocating the {@link Portfolio} if not being inserted.
+     * Merges another set into this one in O(this.size() + other.size()).
+     * <p>
+     * Both sets are sorted by mean with increasing variance, so they are walked from the highest mean down, keeping a
+     * portfolio only if its variance is lower than that of every portfolio with a higher mean already kept. When a
+     * portfolio in this set and one in other are equal, the one in this set is kept.
+     * </p>
      *
-     * @param tickers  portfolio tickers
-     * @param counts   portfolio counts, will be cloned
-     * @param mean     portfolio mean
-     * @param variance portfolio variance
-     * @return true if added, else false
+     * @param other set to merge into this one, not modified
+     * @return the portfolios of other which are in this set after the merge, ordered by mean
      */
-    public boolean add(Ticker[] tickers, int[] counts, double mean, double variance) {
-        int index = binarySearch(portfolios, mean, Portfolio::mean);
-        if (index >= 0) {
-            Portfolio other = portfolios.get(index);
-            if (variance < other.variance()) {
-                portfolios.set(index, new Portfolio(tickers, counts.clone(), mean, variance));
-                return true;
+    @Override
+    public List<Portfolio> merge(MeanVarianceSet other) {
+        List<Portfolio> a = portfolios;
+        List<Portfolio> b = other.portfolios;
+        Portfolio[] merged = new Portfolio[a.size() + b.size()];
+        Portfolio[] added = new Portfolio[b.size()];
+        int mergedStart = merged.length;
+        int addedStart = added.length;
+        double minVariance = Double.POSITIVE_INFINITY;
+        int i = a.size() - 1;
+        int j = b.size() - 1;
+        while (i >= 0 || j >= 0) {
+            Portfolio next;
+            boolean fromOther;
+            if (j < 0) {
+                next = a.get(i--);
+                fromOther = false;
+            } else if (i < 0) {
+                next = b.get(j--);
+                fromOther = true;
             } else {
-                return false;
+                Portfolio pa = a.get(i);
+                Portfolio pb = b.get(j);
+                int cmp = Double.compare(pa.mean(), pb.mean());
+                if (cmp == 0) {
+                    // equal means, the higher variance one is dominated
+                    i--;
+                    j--;
+                    fromOther = pb.variance() < pa.variance();
+                    next = fromOther ? pb : pa;
+                } else if (cmp > 0) {
+                    i--;
+                    next = pa;
+                    fromOther = false;
+                } else {
+                    j--;
+                    next = pb;
+                    fromOther = true;
+                }
             }
-        }
-        index = -(index + 1);
-        if (index > 0) {
-            Portfolio other = portfolios.get(index - 1);
-            if (variance <= other.variance()) {
-                portfolios.set(index - 1, new Portfolio(tickers, counts.clone(), mean, variance));
-                while (index - 2 >= 0) {
-                    Portfolio p = portfolios.get(index - 2);
-                    if (variance <= p.variance()) {
-                        portfolios.remove(index - 2);
-                        index--;
-                    } else {
-                        break;
-                    }
+            if (next.variance() < minVariance) {
+                minVariance = next.variance();
+                merged[--mergedStart] = next;
+                if (fromOther) {
+                    added[--addedStart] = next;
                 }
-                return true;
             }
         }
-        if (index < portfolios.size()) {
-            Portfolio other = portfolios.get(index);
-            if (variance >= other.variance()) {
-                return false;
-            }
+        portfolios.clear();
+        portfolios.addAll(Arrays.asList(merged).subList(mergedStart, merged.length));
+        return Arrays.asList(added).subList(addedStart, added.length);
+    }
+
+    /**
+     * Removes the run of portfolios directly before {@code index} which have a variance greater than or equal to
+     * {@code variance}, in a single shift of the backing list.
+     *
+     * @param index    index of the newly added portfolio
+     * @param variance variance of the newly added portfolio
+     */
+    private void removeDominated(int index, double variance) {
+        int start = index;
+        while (start > 0 && portfolios.get(start - 1).variance() >= variance) {
+            start--;
         }
-        portfolios.add(index, new Portfolio(tickers, counts.clone(), mean, variance));
-        return true;
+        portfolios.subList(start, index).clear();
     }
 
     /**
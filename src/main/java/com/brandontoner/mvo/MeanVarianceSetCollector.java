@@ -30,13 +30,8 @@ class MeanVarianceSetCollector implements Collector<Portfolio, MeanVarianceSet,
             if (b.isEmpty()) {
                 return a;
             }
-            if (a.size() < b.size()) {
-                b.addAll(a); // a is smaller
-                return b;
-            } else {
-                a.addAll(b);
-                return a;
-            }
+            a.merge(b);
+            return a;
         };
     }
 
@@ -0,0 +1,308 @@
+package com.brandontoner.mvo;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import javax.inject.Singleton;
+
+/**
+ * Registry of the optimizer's live metrics, exported by {@link MetricsExporter}.
+ * <p>
+ * Metrics are grouped into families by name, a family holds one series per set of labels. Registering a series which
+ * already exists returns the existing one, so callers may register lazily. Updates are lock-free.
+ * </p>
+ */
+@Singleton
+public class Metrics {
+    /** Map of family name to family, sorted so the output is stable. */
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets or registers a counter without labels.
+     *
+     * @param name metric name, should end in _total
+     * @param help description
+     * @return counter
+     */
+    public Counter counter(String name, String help) {
+        return counter(name, "", "", help);
+    }
+
+    /**
+     * Gets or registers a counter with one label.
+     *
+     * @param name       metric name, should end in _total
+     * @param labelName  label name
+     * @param labelValue label value
+     * @param help       description
+     * @return counter
+     */
+    public Counter counter(String name, String labelName, String labelValue, String help) {
+        return counter(name, labelName, labelValue, help, 1);
+    }
+
+    /**
+     * Gets or registers a counter with one label which is exported multiplied by a scale, for example to count
+     * nanoseconds and export seconds.
+     *
+     * @param name       metric name, should end in _total
+     * @param labelName  label name, empty for none
+     * @param labelValue label value
+     * @param help       description
+     * @param scale      factor the count is multiplied by when exported
+     * @return counter
+     */
+    public Counter counter(String name, String labelName, String labelValue, String help, double scale) {
+        return (Counter) family(name, "counter", help).series.computeIfAbsent(labels(labelName, labelValue),
+                                                                              ignored -> new Counter(scale));
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge of the same name.
+     *
+     * @param name     metric name
+     * @param help     description
+     * @param supplier supplies the current value, called on every export
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier) {
+        family(name, "gauge", help).series.put("", new Gauge(supplier));
+    }
+
+    /**
+     * Gets or registers a histogram without labels.
+     *
+     * @param name    metric name
+     * @param help    description
+     * @param buckets increasing upper bounds of the buckets, a +Inf bucket is added
+     * @return histogram
+     */
+    public Histogram histogram(String name, String help, double... buckets) {
+        return histogram(name, "", "", help, buckets);
+    }
+
+    /**
+     * Gets or registers a histogram with one label.
+     *
+     * @param name       metric name
+     * @param labelName  label name, empty for none
+     * @param labelValue label value
+     * @param help       description
+     * @param buckets    increasing upper bounds of the buckets, a +Inf bucket is added
+     * @return histogram
+     */
+    public Histogram histogram(String name, String labelName, String labelValue, String help, double... buckets) {
+        return (Histogram) family(name, "histogram", help).series.computeIfAbsent(labels(labelName, labelValue),
+                                                                                ignored -> new Histogram(buckets));
+    }
+
+    private Family family(String name, String type, String help) {
+        Family family = families.computeIfAbsent(name, ignored -> new Family(type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("%s is a %s, not a %s".formatted(name, family.type, type));
+        }
+        return family;
+    }
+
+    private static String labels(String labelName, String labelValue) {
+        if (labelName.isEmpty()) {
+            return "";
+        }
+        String escaped = labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return "{%s=\"%s\"}".formatted(labelName, escaped);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     *
+     * @param appendable output
+     * @throws IOException on error writing
+     */
+    public void writePrometheus(Appendable appendable) throws IOException {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            appendable.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            appendable.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Metric> series : family.series.entrySet()) {
+                series.getValue().write(name, series.getKey(), appendable);
+            }
+        }
+    }
+
+    /**
+     * Gets the current value of every series. Histograms contribute their count, sum and mean.
+     *
+     * @return map of series name, with labels, to value
+     */
+    public Map<String, Double> values() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        families.forEach((name, family) -> family.series.forEach((labels, metric) -> {
+            if (metric instanceof Histogram histogram) {
+                values.put(name + "_count" + labels, (double) histogram.count());
+                values.put(name + "_sum" + labels, histogram.sum());
+                values.put(name + "_mean" + labels, histogram.mean());
+            } else {
+                values.put(name + labels, metric.value());
+            }
+        }));
+        return values;
+    }
+
+    /**
+     * A metric name with its type, help and series.
+     */
+    private static final class Family {
+        private final String type;
+        private final String help;
+        /** Map of labels, as exported, to series. */
+        private final ConcurrentMap<String, Metric> series = new ConcurrentSkipListMap<>();
+
+        private Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    /**
+     * A single series.
+     */
+    private abstract static class Metric {
+        abstract double value();
+
+        void write(String name, String labels, Appendable appendable) throws IOException {
+            appendable.append(name).append(labels).append(' ').append(format(value())).append('\n');
+        }
+    }
+
+    private static String format(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value)
+                                                                   : Double.toString(value);
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    public static final class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+        private final double scale;
+
+        private Counter(double scale) {
+            this.scale = scale;
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        /**
+         * Gets the unscaled count.
+         *
+         * @return count
+         */
+        public long sum() {
+            return count.sum();
+        }
+
+        @Override
+        double value() {
+            return count.sum() * scale;
+        }
+    }
+
+    /**
+     * A value read when exported.
+     */
+    private static final class Gauge extends Metric {
+        private final DoubleSupplier supplier;
+
+        private Gauge(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        double value() {
+            return supplier.getAsDouble();
+        }
+    }
+
+    /**
+     * A distribution of observed values, counted into buckets by upper bound.
+     */
+    public static final class Histogram extends Metric {
+        private final double[] bounds;
+        /** Number of observations per bucket, not cumulative, the last is the +Inf bucket. */
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+        private final LongAdder count = new LongAdder();
+
+        private Histogram(double[] bounds) {
+            this.bounds = bounds.clone();
+            buckets = new LongAdder[bounds.length + 1];
+            Arrays.setAll(buckets, ignored -> new LongAdder());
+        }
+
+        /**
+         * Records an observation.
+         *
+         * @param value observed value
+         */
+        public void observe(double value) {
+            int index = Arrays.binarySearch(bounds, value);
+            buckets[index >= 0 ? index : -(index + 1)].increment();
+            sum.add(value);
+            count.increment();
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double sum() {
+            return sum.sum();
+        }
+
+        /**
+         * Gets the mean of the observations.
+         *
+         * @return mean, 0 if there are none
+         */
+        public double mean() {
+            long count = count();
+            return count == 0 ? 0 : sum() / count;
+        }
+
+        @Override
+        double value() {
+            return mean();
+        }
+
+        @Override
+        void write(String name, String labels, Appendable appendable) throws IOException {
+            // the le label goes after the series' own labels
+            String bucketLabels = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String bound = format(i < bounds.length ? bounds[i] : Double.POSITIVE_INFINITY);
+                appendable.append(name).append("_bucket").append(bucketLabels).append("le=\"").append(bound)
+                          .append("\"} ").append(Long.toString(cumulative)).append('\n');
+            }
+            appendable.append(name).append("_sum").append(labels).append(' ').append(format(sum())).append('\n');
+            appendable.append(name).append("_count").append(labels).append(' ').append(Long.toString(count()))
+                      .append('\n');
+        }
+    }
+}
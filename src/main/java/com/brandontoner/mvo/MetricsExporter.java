@@ -0,0 +1,194 @@
+package com.brandontoner.mvo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exposes {@link Metrics} as a read only JMX MBean, {@code com.brandontoner.mvo:type=Metrics}, and in the Prometheus
+ * text format at {@code http://127.0.0.1:<port>/metrics}.
+ * <p>
+ * The HTTP server only listens on the loopback interface. A negative port disables it, port 0 picks a free one.
+ * </p>
+ */
+@Singleton
+public class MetricsExporter implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String OBJECT_NAME = "com.brandontoner.mvo:type=Metrics";
+    private final Metrics metrics;
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+    private ObjectName objectName;
+
+    @Inject
+    MetricsExporter(Metrics metrics, @Named("metricsPort") int port) {
+        this.metrics = metrics;
+        this.port = port;
+    }
+
+    /**
+     * Registers the MBean and starts the HTTP server. Failures are logged, metrics are never worth failing a run over.
+     */
+    public synchronized void start() {
+        try {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+            mbeanServer.registerMBean(new MetricsBean(metrics), name);
+            objectName = name;
+        } catch (JMException e) {
+            LOGGER.warn("Failed to register metrics MBean", e);
+        }
+        if (port < 0) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.createContext("/metrics", this::handle);
+            server.start();
+            LOGGER.info("Serving metrics at http://{}:{}/metrics",
+                        server.getAddress().getHostString(),
+                        server.getAddress().getPort());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to start metrics server on port {}", port, e);
+            server = null;
+        }
+    }
+
+    /**
+     * Gets the port the HTTP server is listening on.
+     *
+     * @return port, or -1 if not listening
+     */
+    public synchronized int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder body = new StringBuilder();
+            metrics.writePrometheus(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Stops the HTTP server and unregisters the MBean.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.warn("Failed to unregister metrics MBean", e);
+            }
+            objectName = null;
+        }
+    }
+
+    /**
+     * MBean with one read only attribute per metric series.
+     */
+    private static final class MetricsBean implements DynamicMBean {
+        private final Metrics metrics;
+
+        private MetricsBean(Metrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Double value = metrics.values().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Double> values = metrics.values();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Double value = values.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException(actionName);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] attributes = metrics.values()
+                                                     .keySet()
+                                                     .stream()
+                                                     .map(name -> new MBeanAttributeInfo(name,
+                                                                                         "double",
+                                                                                         name,
+                                                                                         true,
+                                                                                         false,
+                                                                                         false))
+                                                     .toArray(MBeanAttributeInfo[]::new);
+            return new MBeanInfo(MetricsBean.class.getName(), "Optimizer metrics", attributes, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.brandontoner.mvo;
+
+/**
+ * Evaluates the neighbors of a parent portfolio, where a neighbor moves {@code k} units from one ticker to another.
+ * <p>
+ * The closing value series of the parent is computed once. Each neighbor is then derived from it by adding
+ * {@code k * (price_to - price_from)} on the fly, so evaluating a neighbor costs O(days) regardless of the number of
+ * tickers.
+ * </p>
+ */
+public final class MoveEvaluator {
+    private static final ThreadLocal<MoveEvaluator> THREAD_LOCAL = ThreadLocal.withInitial(MoveEvaluator::new);
+    /** Tickers of the parent portfolio. */
+    private Ticker[] tickers;
+    /** Closing value of the parent portfolio per day. */
+    private double[] parentValues = new double[0];
+    /** Change in closing value per day per unit moved between from and to. */
+    private double[] delta = new double[0];
+    /** Index of the ticker delta takes units from, -1 if not computed. */
+    private int from = -1;
+    /** Index of the ticker delta gives units to, -1 if not computed. */
+    private int to = -1;
+
+    private MoveEvaluator() {
+    }
+
+    /**
+     * Gets the evaluator of the current thread, initialized with the provided parent portfolio. The evaluator is
+     * valid until the next call to this method on the same thread.
+     *
+     * @param tickers ticker array of the parent
+     * @param counts  count array of the parent
+     * @return evaluator for the neighbors of the parent
+     */
+    public static MoveEvaluator forParent(Ticker[] tickers, int[] counts) {
+        MoveEvaluator evaluator = THREAD_LOCAL.get();
+        evaluator.setTickers(tickers);
+        PortfolioFactory.getClosingPrices(tickers, counts, evaluator.parentValues);
+        return evaluator;
+    }
+
+    /**
+     * Gets the evaluator of the current thread, initialized with the provided parent portfolio. The evaluator is
+     * valid until the next call to this method on the same thread.
+     *
+     * @param tickers  ticker array of the parent
+     * @param holdings holdings of the parent
+     * @return evaluator for the neighbors of the parent
+     */
+    public static MoveEvaluator forParent(Ticker[] tickers, Holdings holdings) {
+        MoveEvaluator evaluator = THREAD_LOCAL.get();
+        evaluator.setTickers(tickers);
+        PortfolioFactory.getClosingPrices(tickers, holdings, evaluator.parentValues);
+        return evaluator;
+    }
+
+    private void setTickers(Ticker[] tickers) {
+        int length = tickers[0].getPriceMatrix().dayCount();
+        if (parentValues.length != length) {
+            parentValues = new double[length];
+            delta = new double[length];
+        }
+        this.tickers = tickers;
+        this.from = -1;
+        this.to = -1;
+    }
+
+    /**
+     * Computes the mean and variance of the parent with {@code k} units moved from ticker {@code from} to ticker
+     * {@code to}.
+     *
+     * @param from            index of the ticker to take units from
+     * @param to              index of the ticker to give units to
+     * @param k               number of units to move
+     * @param meanAndVariance array where mean and variance are stored in index 0 and 1
+     */
+    public void getMeanAndVariance(int from, int to, int k, double[] meanAndVariance) {
+        setMove(from, to);
+        Statistics.returnsMeanAndVariance(parentValues, delta, k, meanAndVariance);
+    }
+
+
+    private void setMove(int from, int to) {
+        if (from == this.from && to == this.to) {
+            return;
+        }
+        double[] fromPrices = tickers[from].getPriceMatrix().prices();
+        int fromOffset = tickers[from].getOffset();
+        double[] toPrices = tickers[to].getPriceMatrix().prices();
+        int toOffset = tickers[to].getOffset();
+        for (int i = 0; i < delta.length; i++) {
+            delta[i] = toPrices[toOffset + i] - fromPrices[fromOffset + i];
+        }
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -0,0 +1,120 @@
+package com.brandontoner.mvo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the phases of a run, so a recording shows where the time goes.
+ * <p>
+ * Events are only committed when a recording has them enabled, callers set the fields after checking
+ * {@link Event#shouldCommit()}, so they cost close to nothing otherwise. All are enabled in the default
+ * {@code jfr} settings.
+ * </p>
+ */
+final class MvoEvents {
+    private static final String CATEGORY = "Mean Variance Optimization";
+
+    private MvoEvents() {
+        // noop
+    }
+
+    @Name("com.brandontoner.mvo.RandomSearch")
+    @Label("Random Search Iteration")
+    @Category({CATEGORY, "Search"})
+    @Description("One iteration of twiddling random portfolios of the frontier")
+    static final class RandomSearch extends Event {
+        @Label("Iteration")
+        int iteration;
+        @Label("Candidates")
+        long candidates;
+        @Label("Evaluations")
+        long evaluations;
+        @Label("Accepted")
+        long accepted;
+        @Label("Frontier Size")
+        int frontierSize;
+    }
+
+    @Name("com.brandontoner.mvo.EndgameRound")
+    @Label("Endgame Round")
+    @Category({CATEGORY, "Search"})
+    @Description("One round of trying every single move of the portfolios added by the previous round")
+    static final class EndgameRound extends Event {
+        @Label("Round")
+        int round;
+        @Label("Parents")
+        int parents;
+        @Label("Candidates")
+        long candidates;
+        @Label("Evaluations")
+        long evaluations;
+        @Label("Accepted")
+        long accepted;
+        @Label("Frontier Size")
+        int frontierSize;
+    }
+
+    @Name("com.brandontoner.mvo.FrontierMerge")
+    @Label("Frontier Merge")
+    @Category({CATEGORY, "Search"})
+    @Description("Merge of a set of candidates into the frontier")
+    static final class FrontierMerge extends Event {
+        @Label("Candidates")
+        int candidates;
+        @Label("Accepted")
+        int accepted;
+        @Label("Frontier Size")
+        int frontierSize;
+    }
+
+    @Name("com.brandontoner.mvo.CacheWrite")
+    @Label("Cache Write")
+    @Category({CATEGORY, "Cache"})
+    @Description("Checkpoint of the frontier written to disk")
+    static final class CacheWrite extends Event {
+        @Label("Format")
+        String format;
+        @Label("Entries")
+        int entries;
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.brandontoner.mvo.CacheLoad")
+    @Label("Cache Load")
+    @Category({CATEGORY, "Cache"})
+    @Description("Frontier read from disk")
+    static final class CacheLoad extends Event {
+        @Label("Format")
+        String format;
+        @Label("Entries")
+        int entries;
+        @Label("Valid Entries")
+        int valid;
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+        @Label("Statistics Reused")
+        boolean statisticsReused;
+    }
+
+    @Name("com.brandontoner.mvo.TickerLoad")
+    @Label("Ticker Load")
+    @Category({CATEGORY, "Startup"})
+    @Description("Price CSVs read and aligned into the ticker universe")
+    static final class TickerLoad extends Event {
+        @Label("Files")
+        int files;
+        @Label("Files Parsed")
+        long parsed;
+        @Label("Tickers")
+        int tickers;
+        @Label("Days")
+        int days;
+    }
+}
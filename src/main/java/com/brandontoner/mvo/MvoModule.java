@@ -7,7 +7,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import software.amazon.ion.IonSystem;
 import software.amazon.ion.system.IonSystemBuilder;
@@ -23,15 +25,39 @@ public class MvoModule extends AbstractModule {
     @Singleton
     @Named("outputDir")
     Path outputDir() throws IOException {
-        Path output = Path.of("out");
+        Path output = Path.of(System.getProperty("mvo.output", "out"));
         Files.createDirectories(output);
         return output;
     }
 
+    @Provides
+    @Singleton
+    FrontierType frontierType() {
+        return FrontierType.valueOf(System.getProperty("mvo.frontier", "array").toUpperCase(Locale.ROOT));
+    }
+
+    @Provides
+    @Singleton
+    FrontierSerializer frontierSerializer(Provider<IonSerializer> ionSerializer,
+                                          Provider<BinaryFrontierSerializer> binaryFrontierSerializer) {
+        String format = System.getProperty("mvo.cache", "ion");
+        return switch (format) {
+            case "ion" -> ionSerializer.get();
+            case "binary" -> binaryFrontierSerializer.get();
+            default -> throw new IllegalArgumentException("Unknown cache format " + format);
+        };
+    }
+
+    @Provides
+    @Named("metricsPort")
+    int metricsPort() {
+        return Integer.getInteger("mvo.metrics.port", 9464);
+    }
+
     @Provides
     @Singleton
     @Named("csvPath")
     Path csvDir() {
-        return Path.of("D:\\New folder (2)");
+        return Path.of(System.getProperty("mvo.csv", "D:\\New folder (2)"));
     }
 }
@@ -1,32 +1,136 @@
 package com.brandontoner.mvo;
 
 import com.google.inject.Guice;
-import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 @Singleton
 public class Optimizer {
-    public static final int STOCK_COUNT = 1000;
+    /** Number of units to distribute among the tickers, set with -Dmvo.units. */
+    public static final int STOCK_COUNT = Integer.getInteger("mvo.units", 1000);
     public static final int PER_ITER = Runtime.getRuntime().availableProcessors() * 1000;
     private static final Logger LOGGER = LogManager.getLogger();
+    /**
+     * Safety margin of the covariance screen, as a fraction of the change a move makes, set with
+     * -Dmvo.screen.margin. Negative, the default, evaluates every candidate exactly.
+     */
+    private static final double SCREEN_MARGIN = Double.parseDouble(System.getProperty("mvo.screen.margin", "-1"));
+    /**
+     * Most tickers the covariance screen is built for, set with -Dmvo.screen.maxTickers. Its matrix takes
+     * tickers * tickers doubles, 128 MB at the default.
+     */
+    private static final int SCREEN_MAX_TICKERS = Integer.getInteger("mvo.screen.maxTickers", 4096);
+    /** One in this many candidates rejected by the screen is evaluated anyway, set with -Dmvo.screen.audit. */
+    private static final int SCREEN_AUDIT = Integer.getInteger("mvo.screen.audit", 64);
+    private static final ThreadLocal<Run> RUN_THREAD_LOCAL = ThreadLocal.withInitial(Run::new);
     private final Ticker[] tickers;
-    private final IonSerializer ionSerializer;
+    private final FrontierSerializer frontierSerializer;
+    private final CheckpointWriter checkpointWriter;
+    private final FrontierType frontierType;
+    private final Metrics metrics;
+    private final MetricsExporter metricsExporter;
+    private final Path outputDir;
+    private final Metrics.Counter randomCandidates;
+    private final Metrics.Counter randomEvaluations;
+    private final Metrics.Counter randomAccepted;
+    private final Metrics.Counter endgameCandidates;
+    private final Metrics.Counter endgameEvaluations;
+    private final Metrics.Counter endgameAccepted;
+    private final Metrics.Histogram mergeSeconds;
+    private final ScreenCounters randomScreen;
+    private final ScreenCounters endgameScreen;
+    /** Whether candidates are screened before exact evaluation. */
+    private final boolean screenEnabled;
+    /**
+     * Model screening candidates before exact evaluation, built on first use, see {@link #covarianceModel()}.
+     */
+    private volatile CovarianceModel covarianceModel;
+    /** Time each worker thread spent generating and evaluating candidates. */
+    private final ThreadLocal<Metrics.Counter> threadBusy;
+    /** Time all worker threads spent generating and evaluating candidates, in nanoseconds. */
+    private final LongAdder busyNs = new LongAdder();
+    /** Evaluations per second over the last iteration. */
+    private volatile double evaluationsPerSecond;
+    /** Fraction of the available processors' time spent in workers over the last iteration. */
+    private volatile double utilization;
+    /** Bytes allocated per second by all threads over the last iteration, -1 if not supported. */
+    private volatile double allocationBytesPerSecond = -1;
+    /** Count vectors already offered to the frontier, sized with -Dmvo.visited.bits. */
+    private final VisitedSet visited = new VisitedSet(Integer.getInteger("mvo.visited.bits", 22));
 
+    /**
+     * Constructor.
+     *
+     * @param tickers            universe of tickers, sorted by name
+     * @param frontierSerializer serializer for the frontier cache
+     * @param checkpointWriter   background writer for the frontier cache
+     * @param frontierType       type of frontier to search with
+     * @param metrics            registry to record metrics in
+     * @param metricsExporter    exporter of the metrics
+     * @param outputDir          directory the frontier CSV is written to
+     */
     @Inject
-    public Optimizer(List<Ticker> tickers, IonSerializer ionSerializer) {
+    public Optimizer(List<Ticker> tickers,
+                     FrontierSerializer frontierSerializer,
+                     CheckpointWriter checkpointWriter,
+                     FrontierType frontierType,
+                     Metrics metrics,
+                     MetricsExporter metricsExporter,
+                     @Named("outputDir") Path outputDir) {
         this.tickers = tickers.toArray(Ticker[]::new);
-        this.ionSerializer = ionSerializer;
+        this.frontierSerializer = frontierSerializer;
+        this.checkpointWriter = checkpointWriter;
+        this.frontierType = frontierType;
+        this.metrics = metrics;
+        this.metricsExporter = metricsExporter;
+        this.outputDir = outputDir;
+        String candidatesHelp = "Neighboring portfolios generated";
+        String evaluationsHelp = "Portfolios whose mean and variance were computed";
+        String acceptedHelp = "Portfolios added to the frontier";
+        randomCandidates = metrics.counter("mvo_candidates_total", "phase", "random", candidatesHelp);
+        randomEvaluations = metrics.counter("mvo_evaluations_total", "phase", "random", evaluationsHelp);
+        randomAccepted = metrics.counter("mvo_accepted_total", "phase", "random", acceptedHelp);
+        endgameCandidates = metrics.counter("mvo_candidates_total", "phase", "endgame", candidatesHelp);
+        endgameEvaluations = metrics.counter("mvo_evaluations_total", "phase", "endgame", evaluationsHelp);
+        endgameAccepted = metrics.counter("mvo_accepted_total", "phase", "endgame", acceptedHelp);
+        randomScreen = new ScreenCounters(metrics, "random");
+        endgameScreen = new ScreenCounters(metrics, "endgame");
+        screenEnabled = SCREEN_MARGIN >= 0 && !tickers.isEmpty() && tickers.size() <= SCREEN_MAX_TICKERS;
+        if (SCREEN_MARGIN >= 0 && tickers.size() > SCREEN_MAX_TICKERS) {
+            LOGGER.warn("Covariance screen disabled, {} tickers is more than {}", tickers.size(), SCREEN_MAX_TICKERS);
+        }
+        mergeSeconds = metrics.histogram("mvo_merge_seconds",
+                                         "Time taken to merge candidates into the frontier",
+                                         0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5);
+        threadBusy = ThreadLocal.withInitial(() -> metrics.counter("mvo_worker_busy_seconds_total",
+                                                                   "thread",
+                                                                   Thread.currentThread().getName(),
+                                                                   "Time spent generating and evaluating candidates",
+                                                                   1e-9));
+        metrics.gauge("mvo_evaluations_per_second", "Evaluations per second over the last iteration",
+                      () -> evaluationsPerSecond);
+        metrics.gauge("mvo_worker_utilization", "Fraction of processor time spent in workers over the last iteration",
+                      () -> utilization);
+        metrics.gauge("mvo_allocation_bytes_per_second",
+                      "Bytes allocated per second by all threads over the last iteration, -1 if not supported",
+                      () -> allocationBytesPerSecond);
+        metrics.gauge("mvo_visited_hit_rate", "Fraction of candidates skipped as already visited", visited::hitRate);
     }
 
     /**
@@ -44,30 +148,49 @@ public class Optimizer {
         }
     }
 
-    private void run() throws IOException {
-        getEfficientFrontier(tickers, STOCK_COUNT);
+    /**
+     * Searches until the frontier stops improving, then writes it as CSV.
+     *
+     * @return frontier
+     * @throws IOException on error writing the CSV
+     */
+    EfficientFrontier run() throws IOException {
+        metricsExporter.start();
+        try {
+            return getEfficientFrontier(tickers, STOCK_COUNT);
+        } finally {
+            metricsExporter.close();
+        }
     }
 
-    private void getEfficientFrontier(Ticker[] tickers, int n) throws IOException {
-        MeanVarianceSet portfolios = ionSerializer.load(tickers);
+    private EfficientFrontier getEfficientFrontier(Ticker[] tickers, int n) throws IOException {
+        EfficientFrontier portfolios = frontierType.create();
+        portfolios.addAll(frontierSerializer.load(tickers));
+        metrics.gauge("mvo_frontier_size", "Number of portfolios on the frontier", portfolios::size);
+        LOGGER.info("Searching with a {} frontier", frontierType);
         if (portfolios.isEmpty()) {
             portfolios.add(getEvenDistribution(tickers, n));
         }
         int lastSize = 0;
         for (int i = 0, consecutiveNoChanges = 0; consecutiveNoChanges < 5; ++i) {
-            MeanVarianceSet localPortfolios = IntStream.range(0, PER_ITER)
-                                                       .parallel()
-                                                       .map(ignored -> ThreadLocalRandom.current()
-                                                                                        .nextInt(portfolios.size()))
-                                                       .mapToObj(portfolios::get)
-                                                       .map(Optimizer::twiddle)
-                                                       .flatMap(Collection::stream)
-                                                       .collect(MeanVarianceSet.collector());
-            int changed = 0;
-            for (Portfolio localPortfolio : localPortfolios) {
-                if (portfolios.add(localPortfolio)) {
-                    changed++;
-                }
+            MvoEvents.RandomSearch event = new MvoEvents.RandomSearch();
+            event.begin();
+            long startTimeNs = System.nanoTime();
+            long startBusyNs = busyNs.sum();
+            long startAllocatedBytes = allocatedBytes();
+            long startCandidates = randomCandidates.sum();
+            long startEvaluations = randomEvaluations.sum();
+            int changed = randomSearch(portfolios);
+            randomAccepted.add(changed);
+            recordIteration(startTimeNs, startBusyNs, startAllocatedBytes,
+                            randomEvaluations.sum() - startEvaluations);
+            if (event.shouldCommit()) {
+                event.iteration = i;
+                event.candidates = randomCandidates.sum() - startCandidates;
+                event.evaluations = randomEvaluations.sum() - startEvaluations;
+                event.accepted = changed;
+                event.frontierSize = portfolios.size();
+                event.commit();
             }
             if (changed == 0) {
                 consecutiveNoChanges++;
@@ -77,102 +200,326 @@ public class Optimizer {
             if (i % 100 == 0) {
                 LOGGER.info(
                         "Iteration: {}, portfolio count: {}, (change: {}),"
-                        + " changes this iteration: {}, consecutive no changes: {}",
+                        + " changes this iteration: {}, consecutive no changes: {}, {}, {}",
                         i + 1,
                         portfolios.size(),
                         portfolios.size() - lastSize,
                         changed,
-                        consecutiveNoChanges);
+                        consecutiveNoChanges,
+                        visited,
+                        checkpointWriter);
                 lastSize = portfolios.size();
-                ionSerializer.writeTo(portfolios);
+                checkpointWriter.request(portfolios);
             }
         }
 
-        MeanVarianceSet toIterate = portfolios;
+        Collection<Portfolio> toIterate = portfolios.snapshot();
         LOGGER.info("Endgame: iterating all permutations");
         for (int i = 0; true; ++i) {
-            MeanVarianceSet all = toIterate.parallelStream()
-                                           .flatMap(Optimizer::allPermutations)
-                                           .collect(MeanVarianceSet.collector());
-            List<Portfolio> changed = new ArrayList<>();
-            // TODO use portfolios.addAll()
-            for (Portfolio localPortfolio : all) {
-                if (portfolios.add(localPortfolio)) {
-                    changed.add(localPortfolio);
-                }
+            MvoEvents.EndgameRound event = new MvoEvents.EndgameRound();
+            event.begin();
+            long startTimeNs = System.nanoTime();
+            long startBusyNs = busyNs.sum();
+            long startAllocatedBytes = allocatedBytes();
+            long startCandidates = endgameCandidates.sum();
+            long startEvaluations = endgameEvaluations.sum();
+            List<Portfolio> changed = permute(toIterate, portfolios);
+            endgameAccepted.add(changed.size());
+            recordIteration(startTimeNs, startBusyNs, startAllocatedBytes,
+                            endgameEvaluations.sum() - startEvaluations);
+            if (event.shouldCommit()) {
+                event.round = i;
+                event.parents = toIterate.size();
+                event.candidates = endgameCandidates.sum() - startCandidates;
+                event.evaluations = endgameEvaluations.sum() - startEvaluations;
+                event.accepted = changed.size();
+                event.frontierSize = portfolios.size();
+                event.commit();
             }
-            ionSerializer.writeTo(portfolios);
+            checkpointWriter.request(portfolios);
             // Only process the ones that are newly added all the existing one's
             // permutations are either worse or in changed
             toIterate = new MeanVarianceSet(changed);
-            LOGGER.info("Iteration: {}, portfolio count: {}, (change: {}), changes this iteration: {}",
+            LOGGER.info("Iteration: {}, portfolio count: {}, (change: {}), changes this iteration: {}, {}, {}",
                         i + 1,
                         portfolios.size(),
                         portfolios.size() - lastSize,
-                        changed.size());
+                        changed.size(),
+                        visited,
+                        checkpointWriter);
             lastSize = portfolios.size();
             if (changed.isEmpty()) {
                 break;
             }
         }
 
-        try (PrintWriter pw = new PrintWriter(new File("out", "ef.csv"))) {
-            Csv.writeCsv(portfolios, pw);
+        // waits for the last checkpoint to be written
+        checkpointWriter.close();
+        Csv.writeCsv(portfolios, outputDir.resolve("ef.csv"));
+        return portfolios;
+    }
+
+    /**
+     * Updates the per iteration gauges.
+     *
+     * @param startTimeNs         time the iteration started
+     * @param startBusyNs         worker busy time when the iteration started
+     * @param startAllocatedBytes bytes allocated by all threads when the iteration started, -1 if not supported
+     * @param evaluations         number of evaluations in the iteration
+     */
+    private void recordIteration(long startTimeNs, long startBusyNs, long startAllocatedBytes, long evaluations) {
+        long elapsedNs = Math.max(1, System.nanoTime() - startTimeNs);
+        evaluationsPerSecond = evaluations * 1e9 / elapsedNs;
+        utilization = (double) (busyNs.sum() - startBusyNs) / elapsedNs / Runtime.getRuntime().availableProcessors();
+        long endAllocatedBytes = allocatedBytes();
+        allocationBytesPerSecond = startAllocatedBytes < 0 || endAllocatedBytes < 0
+                                   ? -1
+                                   : (endAllocatedBytes - startAllocatedBytes) * 1e9 / elapsedNs;
+    }
+
+    /**
+     * Gets the bytes allocated so far by all live threads, from the HotSpot thread bean.
+     *
+     * @return bytes allocated, -1 if not supported or disabled
+     */
+    static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+            || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            // -1 for threads which terminated since being listed
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private void recordBusy(long startTimeNs) {
+        long busy = System.nanoTime() - startTimeNs;
+        busyNs.add(busy);
+        threadBusy.get().add(busy);
+    }
+
+    /**
+     * Twiddles {@link #PER_ITER} random portfolios of the frontier and adds the results to it. Workers add straight to
+     * concurrent frontiers. For other frontiers each worker collects into a set of its own, so only neighbors
+     * efficient among those it has seen are allocated, and the sets are merged into the frontier serially.
+     *
+     * @param portfolios frontier
+     * @return number of portfolios added to the frontier
+     */
+    private int randomSearch(EfficientFrontier portfolios) {
+        if (frontierType.isConcurrent()) {
+            // concurrent frontiers change while sampling, so sample from a snapshot
+            List<Portfolio> parents = portfolios.snapshot();
+            return IntStream.range(0, PER_ITER)
+                            .parallel()
+                            .map(ignored -> twiddle(parents.get(ThreadLocalRandom.current().nextInt(parents.size())),
+                                                    portfolios))
+                            .sum();
+        }
+        int parentCount = portfolios.size();
+        MeanVarianceSet localPortfolios = IntStream.range(0, PER_ITER)
+                                                   .parallel()
+                                                   .map(ignored -> ThreadLocalRandom.current().nextInt(parentCount))
+                                                   .collect(MeanVarianceSet::new,
+                                                            (set, index) -> twiddle(portfolios.get(index), set),
+                                                            MeanVarianceSet::merge);
+        return merge(portfolios, localPortfolios).size();
+    }
+
+    /**
+     * Adds all the permutations of the provided portfolios to the frontier.
+     *
+     * @param toIterate  portfolios to permute
+     * @param portfolios frontier
+     * @return permutations which were added to the frontier
+     */
+    private List<Portfolio> permute(Collection<Portfolio> toIterate, EfficientFrontier portfolios) {
+        Stream<Portfolio> permutations = toIterate.parallelStream().flatMap(this::allPermutations);
+        if (frontierType.isConcurrent()) {
+            Queue<Portfolio> changed = new ConcurrentLinkedQueue<>();
+            permutations.forEach(portfolio -> {
+                if (portfolios.add(portfolio)) {
+                    changed.add(portfolio);
+                }
+            });
+            return new ArrayList<>(changed);
+        }
+        return merge(portfolios, permutations.collect(MeanVarianceSet.collector()));
+    }
+
+    private List<Portfolio> merge(EfficientFrontier portfolios, MeanVarianceSet other) {
+        MvoEvents.FrontierMerge event = new MvoEvents.FrontierMerge();
+        event.begin();
+        long startTimeNs = System.nanoTime();
+        List<Portfolio> added = portfolios.merge(other);
+        mergeSeconds.observe((System.nanoTime() - startTimeNs) / 1e9);
+        if (event.shouldCommit()) {
+            event.candidates = other.size();
+            event.accepted = added.size();
+            event.frontierSize = portfolios.size();
+            event.commit();
         }
+        return added;
     }
 
-    private static Stream<Portfolio> allPermutations(Portfolio portfolio) {
+    /**
+     * Evaluates every portfolio which moves some units of one ticker of a portfolio to another.
+     *
+     * @param portfolio parent portfolio
+     * @return the efficient subset of the neighbors not visited before
+     */
+    Stream<Portfolio> allPermutations(Portfolio portfolio) {
+        final long startTimeNs = System.nanoTime();
+        int candidates = 0;
+        int evaluations = 0;
         double[] meanAndVariance = new double[2];
+        double[] estimate = new double[2];
         Ticker[] tickers = portfolio.tickers();
-        int[] counts = portfolio.counts().clone();
+        Holdings holdings = portfolio.holdings();
+        long hash = VisitedSet.hash(holdings);
+        MoveEvaluator evaluator = MoveEvaluator.forParent(tickers, holdings);
+        CovarianceModel model = covarianceModel();
+        CovarianceModel.Scorer scorer = model == null ? null : model.forParent(portfolio);
         MeanVarianceSet output = new MeanVarianceSet();
-        for (int i = 0; i < tickers.length; ++i) {
-            final int starti = counts[i];
+        // only held tickers can give units, so this scales with holdings times universe rather than universe squared
+        for (int held = 0; held < holdings.size(); ++held) {
+            final int i = holdings.index(held);
+            final int count = holdings.count(held);
             for (int j = 0; j < tickers.length; ++j) {
                 if (i == j) {
                     continue;
                 }
-                int startj = counts[j];
-                while (counts[i] > 0) {
-                    counts[i]--;
-                    counts[j]++;
+                for (int k = 1; k <= count; ++k) {
+                    candidates++;
+                    // screened out candidates are left unvisited, so a later parent may still evaluate them exactly
+                    boolean rejected = scorer != null && isRejected(scorer, output, i, j, k, estimate);
+                    if (rejected && endgameScreen.skip() || visited.checkAndAdd(VisitedSet.move(hash, i, j, k))) {
+                        continue;
+                    }
 
-                    PortfolioFactory.getMeanAndVariance(tickers, counts, meanAndVariance);
+                    evaluator.getMeanAndVariance(i, j, k, meanAndVariance);
+                    evaluations++;
 
-                    output.add(tickers, counts, meanAndVariance[0], meanAndVariance[1]);
+                    if (!output.isDominated(meanAndVariance[0], meanAndVariance[1])) {
+                        if (rejected) {
+                            endgameScreen.falseRejects.increment();
+                        }
+                        output.add(new Portfolio(tickers, holdings.move(i, j, k), meanAndVariance[0],
+                                                 meanAndVariance[1]));
+                    }
                 }
-                counts[i] = starti;
-                counts[j] = startj;
             }
         }
+        endgameCandidates.add(candidates);
+        endgameEvaluations.add(evaluations);
+        recordBusy(startTimeNs);
         return output.stream();
     }
 
-    private static MeanVarianceSet twiddle(Portfolio portfolio) {
-        int[] counts = portfolio.counts();
+    /**
+     * Evaluates the portfolios which move 1, 2, 3... units between two random tickers of a portfolio, until one is
+     * not efficient among them, and adds them to a frontier.
+     * <p>
+     * The run of neighbors is tracked as means and variances in per-thread scratch, so a neighbor is only allocated
+     * when it is efficient in the run and not dominated by the output.
+     * </p>
+     *
+     * @param portfolio parent portfolio
+     * @param output    frontier to add the neighbors not visited before to
+     * @return number of neighbors added to the output
+     */
+    int twiddle(Portfolio portfolio, EfficientFrontier output) {
+        final long startTimeNs = System.nanoTime();
+        int candidates = 0;
+        int evaluations = 0;
+        int added = 0;
+        Holdings holdings = portfolio.holdings();
         Ticker[] tickers = portfolio.tickers();
-        int index1;
-        int index2;
         ThreadLocalRandom current = ThreadLocalRandom.current();
+        // a uniformly random held ticker gives, any other ticker takes
+        int held = current.nextInt(holdings.size());
+        int index1 = holdings.index(held);
+        int count1 = holdings.count(held);
+        int index2;
         do {
-            index1 = current.nextInt(counts.length);
-        } while (counts[index1] == 0);
-        do {
-            index2 = current.nextInt(counts.length);
+            index2 = current.nextInt(tickers.length);
         } while (index2 == index1);
-        MeanVarianceSet portfolios = new MeanVarianceSet();
-        for (int i = 1; true; ++i) {
-            if (counts[index1] - i < 0) {
+        long hash = VisitedSet.hash(holdings);
+        MoveEvaluator evaluator = MoveEvaluator.forParent(tickers, holdings);
+        CovarianceModel model = covarianceModel();
+        CovarianceModel.Scorer scorer = model == null ? null : model.forParent(portfolio);
+        Run run = RUN_THREAD_LOCAL.get();
+        run.clear();
+        double[] meanAndVariance = run.meanAndVariance;
+        for (int i = 1; i <= count1; ++i) {
+            candidates++;
+            boolean rejected = false;
+            if (scorer != null) {
+                scorer.getMeanAndVariance(index1, index2, i, SCREEN_MARGIN, meanAndVariance);
+                rejected = run.isDominated(meanAndVariance[0], meanAndVariance[1]);
+            }
+            // screened out candidates are left unvisited, so a later run may still evaluate them exactly
+            if (rejected && randomScreen.skip()) {
                 break;
             }
-            int[] countsCopy = counts.clone();
-            countsCopy[index1] -= i;
-            countsCopy[index2] += i;
-            if (!portfolios.add(PortfolioFactory.get(tickers, countsCopy))) {
+            if (visited.checkAndAdd(VisitedSet.move(hash, index1, index2, i))) {
+                continue;
+            }
+            evaluator.getMeanAndVariance(index1, index2, i, meanAndVariance);
+            evaluations++;
+            boolean dominated = run.isDominated(meanAndVariance[0], meanAndVariance[1]);
+            if (rejected && !dominated) {
+                randomScreen.falseRejects.increment();
+            }
+            if (dominated) {
                 break;
             }
+            run.add(meanAndVariance[0], meanAndVariance[1]);
+            if (!output.isDominated(meanAndVariance[0], meanAndVariance[1])
+                && output.add(new Portfolio(tickers, holdings.move(index1, index2, i), meanAndVariance[0],
+                                            meanAndVariance[1]))) {
+                added++;
+            }
         }
-        return portfolios;
+        randomCandidates.add(candidates);
+        randomEvaluations.add(evaluations);
+        recordBusy(startTimeNs);
+        return added;
+    }
+
+    /**
+     * Gets the covariance model, building it on first use so runs without the screen never pay for its matrix.
+     *
+     * @return model, null if the screen is disabled
+     */
+    private CovarianceModel covarianceModel() {
+        if (!screenEnabled) {
+            return null;
+        }
+        CovarianceModel model = covarianceModel;
+        if (model == null) {
+            synchronized (this) {
+                model = covarianceModel;
+                if (model == null) {
+                    model = CovarianceModel.of(tickers);
+                    covarianceModel = model;
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Checks whether the covariance model's optimistic estimate of a neighbor is dominated by a set, in which case
+     * its exact point almost certainly is too.
+     */
+    private static boolean isRejected(CovarianceModel.Scorer scorer, MeanVarianceSet set, int from, int to, int k,
+                                      double[] estimate) {
+        scorer.getMeanAndVariance(from, to, k, SCREEN_MARGIN, estimate);
+        return set.isDominated(estimate[0], estimate[1]);
     }
 
     private static Portfolio getEvenDistribution(Ticker[] tickers, int n) {
@@ -183,4 +530,75 @@ public class Optimizer {
         return PortfolioFactory.get(tickers, counts);
     }
 
+    /**
+     * Counters of the covariance screen in one phase of the search.
+     */
+    private static final class ScreenCounters {
+        /** Candidates rejected by the screen, including those audited. */
+        private final Metrics.Counter rejected;
+        /** Rejected candidates evaluated anyway. */
+        private final Metrics.Counter audited;
+        /** Audited candidates which turned out efficient. */
+        private final Metrics.Counter falseRejects;
+
+        ScreenCounters(Metrics metrics, String phase) {
+            rejected = metrics.counter("mvo_screen_rejected_total", "phase", phase,
+                                       "Candidates rejected by the covariance screen");
+            audited = metrics.counter("mvo_screen_audited_total", "phase", phase,
+                                      "Candidates rejected by the covariance screen and evaluated anyway");
+            falseRejects = metrics.counter("mvo_screen_false_rejects_total", "phase", phase,
+                                           "Audited candidates which were efficient after all");
+        }
+
+        /**
+         * Records a rejected candidate, and decides whether to skip it or audit it.
+         *
+         * @return true to skip the candidate, false to evaluate it exactly
+         */
+        boolean skip() {
+            rejected.increment();
+            if (SCREEN_AUDIT > 0 && ThreadLocalRandom.current().nextInt(SCREEN_AUDIT) == 0) {
+                audited.increment();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Means and variances of the neighbors of a run of {@link #twiddle}, reused by each worker thread.
+     */
+    private static final class Run {
+        /** Scratch for the mean and variance of the current neighbor. */
+        private final double[] meanAndVariance = new double[2];
+        private double[] means = new double[16];
+        private double[] variances = new double[16];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(double mean, double variance) {
+            if (size == means.length) {
+                means = Arrays.copyOf(means, 2 * size);
+                variances = Arrays.copyOf(variances, 2 * size);
+            }
+            means[size] = mean;
+            variances[size] = variance;
+            size++;
+        }
+
+        /**
+         * Checks whether a point is dominated by a neighbor of the run, in O(size), as runs are short.
+         */
+        boolean isDominated(double mean, double variance) {
+            for (int i = 0; i < size; i++) {
+                if (means[i] >= mean && variances[i] <= variance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -7,12 +7,18 @@ import java.util.Objects;
 
 /**
  * A collection of tickers and their allocations.
+ * <p>
+ * Allocations are held as a count per ticker, as sparse {@link Holdings}, or both. Whichever the portfolio was created
+ * with, the other is derived on first use.
+ * </p>
  */
 public final class Portfolio {
     /** Tickers, each value corresponds to the same index in counts. */
     private final Ticker[] tickers;
-    /** Count of each ticker, each value corresponds to the same index in tickers. */
-    private final int[] counts;
+    /** Count of each ticker, each value corresponds to the same index in tickers, null until derived. */
+    private volatile int[] counts;
+    /** Nonzero counts, null until derived. */
+    private volatile Holdings holdings;
     /** Arithmetic mean of the returns. */
     private final double mean;
     /** Variance of the returns. */
@@ -33,6 +39,21 @@ public final class Portfolio {
         this.variance = variance;
     }
 
+    /**
+     * Constructor.
+     *
+     * @param tickers  tickers, indexed by the holdings
+     * @param holdings nonzero count of each ticker
+     * @param mean     arithmetic mean of the returns
+     * @param variance variance of the returns
+     */
+    Portfolio(Ticker[] tickers, Holdings holdings, double mean, double variance) {
+        this.tickers = tickers;
+        this.holdings = holdings;
+        this.mean = mean;
+        this.variance = variance;
+    }
+
     /**
      * Gets the array of tickers for this portfolio.
      *
@@ -48,9 +69,28 @@ public final class Portfolio {
      * @return the array of counts for this portfolio. Each value corresponds to the same index in tickers.
      */
     public int[] counts() {
+        int[] counts = this.counts;
+        if (counts == null && holdings != null) {
+            counts = holdings.toCounts(tickers.length);
+            this.counts = counts;
+        }
         return counts;
     }
 
+    /**
+     * Gets the nonzero counts of this portfolio.
+     *
+     * @return holdings, indexed as the tickers
+     */
+    public Holdings holdings() {
+        Holdings holdings = this.holdings;
+        if (holdings == null && counts != null) {
+            holdings = Holdings.of(counts);
+            this.holdings = holdings;
+        }
+        return holdings;
+    }
+
     /**
      * Gets the arithmetic mean of the returns.
      *
@@ -76,11 +116,9 @@ public final class Portfolio {
      */
     public Map<String, Integer> countsMap() {
         Map<String, Integer> out = new HashMap<>();
-        for (int i = 0; i < tickers.length; i++) {
-            int count = counts[i];
-            if (count != 0) {
-                out.put(tickers[i].getName(), count);
-            }
+        Holdings holdings = holdings();
+        for (int i = 0; i < holdings.size(); i++) {
+            out.put(tickers[holdings.index(i)].getName(), holdings.count(i));
         }
         return out;
     }
@@ -97,21 +135,21 @@ public final class Portfolio {
         return Double.compare(portfolio.mean, mean) == 0
                && Double.compare(portfolio.variance, variance) == 0
                && Arrays.equals(tickers, portfolio.tickers)
-               && Arrays.equals(counts, portfolio.counts);
+               && Objects.equals(holdings(), portfolio.holdings());
     }
 
     @Override
     public int hashCode() {
         int result = Objects.hash(mean, variance);
         result = 31 * result + Arrays.hashCode(tickers);
-        result = 31 * result + Arrays.hashCode(counts);
+        result = 31 * result + Objects.hashCode(holdings());
         return result;
     }
 
     @Override
     public String toString() {
         return "Portfolio{tickers=%s, counts=%s, mean=%s, variance=%s}".formatted(Arrays.toString(tickers),
-                                                                                  Arrays.toString(counts),
+                                                                                  Arrays.toString(counts()),
                                                                                   mean,
                                                                                   variance);
     }
@@ -1,9 +1,12 @@
 package com.brandontoner.mvo;
 
 import java.util.Arrays;
+import java.util.List;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
 
 public final class PortfolioFactory {
-    private static final ThreadLocal<double[]> RETURNS_THREAD_LOCAL = new ThreadLocal<>();
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
     private static final ThreadLocal<double[]> CLOSING_PRICES_THREAD_LOCAL = new ThreadLocal<>();
 
     private PortfolioFactory() {
@@ -17,11 +20,22 @@ public final class PortfolioFactory {
      * @return portfolio
      */
     public static Portfolio get(Ticker[] tickers, int[] counts) {
-        double[] closingValues = getClosingPrices(tickers, counts);
-        double[] returns = getReturns(closingValues);
-        double mean = Statistics.mean(returns);
-        double variance = Statistics.variance(returns, mean);
-        return new Portfolio(tickers, counts, mean, variance);
+        double[] meanAndVariance = new double[2];
+        getMeanAndVariance(tickers, counts, meanAndVariance);
+        return new Portfolio(tickers, counts, meanAndVariance[0], meanAndVariance[1]);
+    }
+
+    /**
+     * Gets a Portfolio for the provided ticker array and holdings.
+     *
+     * @param tickers  ticker array
+     * @param holdings holdings, indexed as the tickers
+     * @return portfolio
+     */
+    public static Portfolio get(Ticker[] tickers, Holdings holdings) {
+        double[] meanAndVariance = new double[2];
+        getMeanAndVariance(tickers, holdings, meanAndVariance);
+        return new Portfolio(tickers, holdings, meanAndVariance[0], meanAndVariance[1]);
     }
 
     /**
@@ -32,49 +46,90 @@ public final class PortfolioFactory {
      * @param meanAndVariance array where mean and variance are stored in index 0 and 1
      */
     public static void getMeanAndVariance(Ticker[] tickers, int[] counts, double[] meanAndVariance) {
-        double[] closingValues = getClosingPrices(tickers, counts);
-        double[] returns = getReturns(closingValues);
-        double mean = Statistics.mean(returns);
-        double variance = Statistics.variance(returns, mean);
-        meanAndVariance[0] = mean;
-        meanAndVariance[1] = variance;
+        Statistics.returnsMeanAndVariance(getClosingPrices(tickers, counts, closingPricesBuffer(tickers)),
+                                          meanAndVariance);
     }
 
-    static double[] getReturns(double[] closingValues) {
-        double[] returns = RETURNS_THREAD_LOCAL.get();
-        if (returns == null || returns.length != closingValues.length - 1) {
-            returns = new double[closingValues.length - 1];
-            RETURNS_THREAD_LOCAL.set(returns);
-        }
-        double last = closingValues[0];
-        for (int i = 1; i < closingValues.length; ++i) {
-            double v = closingValues[i];
-            returns[i - 1] = v / last;
-            last = v;
-        }
-        return returns;
+    /**
+     * Gets the mean and variance of a portfolio, in time proportional to the number of tickers held.
+     *
+     * @param tickers         ticker array
+     * @param holdings        holdings, indexed as the tickers
+     * @param meanAndVariance array where mean and variance are stored in index 0 and 1
+     */
+    public static void getMeanAndVariance(Ticker[] tickers, Holdings holdings, double[] meanAndVariance) {
+        Statistics.returnsMeanAndVariance(getClosingPrices(tickers, holdings, closingPricesBuffer(tickers)),
+                                          meanAndVariance);
     }
 
-    private static double[] getClosingPrices(Ticker[] tickers, int[] counts) {
+    private static double[] closingPricesBuffer(Ticker[] tickers) {
         double[] output = CLOSING_PRICES_THREAD_LOCAL.get();
-        int length = tickers[0].getClosingPricesArray().length;
+        int length = tickers[0].getPriceMatrix().dayCount();
         if (output == null || output.length != length) {
             output = new double[length];
             CLOSING_PRICES_THREAD_LOCAL.set(output);
         }
+        return output;
+    }
+
+    /**
+     * Computes the closing value of the portfolio per day.
+     *
+     * @param tickers ticker array
+     * @param counts  count array
+     * @param output  array to store the closing values in, must be as long as the closing prices of the tickers
+     * @return {@code output}
+     */
+    static double[] getClosingPrices(Ticker[] tickers, int[] counts, double[] output) {
         Arrays.fill(output, 0);
         for (int i = 0; i < tickers.length; i++) {
-            int coef = counts[i];
-            if (coef == 0) {
-                continue;
+            if (counts[i] != 0) {
+                addClosingPrices(tickers[i], counts[i], output);
             }
-            Ticker ticker = tickers[i];
-            double[] closingPricesArray = ticker.getClosingPricesArray(coef);
+        }
+        return output;
+    }
 
-            for (int j = 0; j < closingPricesArray.length; j++) {
-                output[j] += closingPricesArray[j];
-            }
+    /**
+     * Computes the closing value of the portfolio per day, walking only the tickers held.
+     *
+     * @param tickers  ticker array
+     * @param holdings holdings, indexed as the tickers
+     * @param output   array to store the closing values in, must be as long as the closing prices of the tickers
+     * @return {@code output}
+     */
+    static double[] getClosingPrices(Ticker[] tickers, Holdings holdings, double[] output) {
+        Arrays.fill(output, 0);
+        for (int i = 0; i < holdings.size(); i++) {
+            addClosingPrices(tickers[holdings.index(i)], holdings.count(i), output);
         }
         return output;
     }
+
+    private static void addClosingPrices(Ticker ticker, int coef, double[] output) {
+        double[] prices = ticker.getPriceMatrix().prices();
+        int offset = ticker.getOffset();
+        int upperBound = DOUBLE_SPECIES.loopBound(output.length);
+        int j = 0;
+        for (; j < upperBound; j += DOUBLE_SPECIES.length()) {
+            DoubleVector.fromArray(DOUBLE_SPECIES, prices, offset + j)
+                        .mul(coef)
+                        .add(DoubleVector.fromArray(DOUBLE_SPECIES, output, j))
+                        .intoArray(output, j);
+        }
+        for (; j < output.length; j++) {
+            output[j] += coef * prices[offset + j];
+        }
+    }
+
+    /**
+     * Evaluates many portfolios in parallel.
+     *
+     * @param tickers  ticker array
+     * @param holdings holdings of each portfolio, indexed as the tickers
+     * @return portfolios, in the same order as the holdings
+     */
+    public static List<Portfolio> getAll(Ticker[] tickers, List<Holdings> holdings) {
+        return holdings.parallelStream().map(h -> get(tickers, h)).toList();
+    }
 }
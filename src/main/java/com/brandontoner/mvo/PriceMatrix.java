@@ -0,0 +1,85 @@
+package com.brandontoner.mvo;
+
+/**
+ * Closing prices of a universe of tickers, stored contiguously in ticker-major order.
+ * <p>
+ * The price of the ticker in row {@code r} on day {@code d} is at {@code prices()[offset(r) + d]}. Memory scales
+ * with tickers * days, portfolios multiply the prices by their counts on the fly.
+ * </p>
+ */
+public final class PriceMatrix {
+    /** Number of rows. */
+    private final int tickerCount;
+    /** Number of columns. */
+    private final int dayCount;
+    /** Backing array, each row is dayCount long. */
+    private final double[] prices;
+
+    /**
+     * Constructor.
+     *
+     * @param tickerCount number of tickers (rows)
+     * @param dayCount    number of days (columns)
+     */
+    public PriceMatrix(int tickerCount, int dayCount) {
+        this.tickerCount = tickerCount;
+        this.dayCount = dayCount;
+        this.prices = new double[Math.multiplyExact(tickerCount, dayCount)];
+    }
+
+    /**
+     * Gets the number of tickers (rows) in the matrix.
+     *
+     * @return number of tickers
+     */
+    public int tickerCount() {
+        return tickerCount;
+    }
+
+    /**
+     * Gets the number of days (columns) in the matrix.
+     *
+     * @return number of days
+     */
+    public int dayCount() {
+        return dayCount;
+    }
+
+    /**
+     * Gets the backing array. Not copied, must not be modified.
+     *
+     * @return backing array
+     * @see #offset(int)
+     */
+    public double[] prices() {
+        return prices;
+    }
+
+    /**
+     * Gets the index in {@link #prices()} of the first day of a row.
+     *
+     * @param row row index
+     * @return offset of the row
+     */
+    public int offset(int row) {
+        return row * dayCount;
+    }
+
+    /**
+     * Gets the closing price of a ticker on a day.
+     *
+     * @param row row index
+     * @param day day index
+     * @return closing price
+     */
+    public double get(int row, int day) {
+        return prices[offset(row) + day];
+    }
+
+    void setRow(int row, double[] values) {
+        if (values.length != dayCount) {
+            throw new IllegalArgumentException("Expected %s days, got %s".formatted(dayCount, values.length));
+        }
+        System.arraycopy(values, 0, prices, offset(row), dayCount);
+    }
+}
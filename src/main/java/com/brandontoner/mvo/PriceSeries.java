@@ -0,0 +1,99 @@
+package com.brandontoner.mvo;
+
+import java.util.Arrays;
+
+/**
+ * Closing prices of a ticker as primitive columns, one row per day in increasing order of date.
+ */
+public final class PriceSeries {
+    private final String name;
+    /** Days since 1970-01-01 of each row, strictly increasing. */
+    private final int[] epochDays;
+    /** Closing price of each row. */
+    private final double[] closes;
+
+    /**
+     * Constructor, the arrays are not copied.
+     *
+     * @param name      ticker name
+     * @param epochDays days since 1970-01-01 of each row, strictly increasing
+     * @param closes    closing price of each row
+     */
+    PriceSeries(String name, int[] epochDays, double[] closes) {
+        if (epochDays.length != closes.length) {
+            throw new IllegalArgumentException("Expected %s closes, got %s".formatted(epochDays.length,
+                                                                                     closes.length));
+        }
+        this.name = name;
+        this.epochDays = epochDays;
+        this.closes = closes;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * Gets the days since 1970-01-01 of each row. The array is not copied and must not be modified.
+     *
+     * @return strictly increasing epoch days
+     */
+    public int[] epochDays() {
+        return epochDays;
+    }
+
+    /**
+     * Gets the closing price of each row. The array is not copied and must not be modified.
+     *
+     * @return closing prices
+     */
+    public double[] closes() {
+        return closes;
+    }
+
+    /**
+     * Gets the rows on or after a day.
+     *
+     * @param epochDay first day to keep, in days since 1970-01-01
+     * @return this if every row is kept, else a series of the kept rows
+     */
+    public PriceSeries since(int epochDay) {
+        int index = Arrays.binarySearch(epochDays, epochDay);
+        int from = index >= 0 ? index : -(index + 1);
+        if (from == 0) {
+            return this;
+        }
+        return new PriceSeries(name,
+                               Arrays.copyOfRange(epochDays, from, epochDays.length),
+                               Arrays.copyOfRange(closes, from, closes.length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PriceSeries that = (PriceSeries) o;
+        return name.equals(that.name) && Arrays.equals(epochDays, that.epochDays) && Arrays.equals(closes, that.closes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name.hashCode();
+        result = 31 * result + Arrays.hashCode(epochDays);
+        result = 31 * result + Arrays.hashCode(closes);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceSeries{name=%s, size=%s}".formatted(name, size());
+    }
+}
@@ -0,0 +1,207 @@
+package com.brandontoner.mvo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A binary file of pre-parsed price CSVs, so unchanged CSVs do not have to be parsed again.
+ * <p>
+ * Each ticker is stored with the size and last modified time of the CSV it was parsed from, and only reused while
+ * both still match. The layout, big endian, is
+ * </p>
+ * <pre>
+ * int     magic "MVOP"
+ * int     version
+ * int     ticker count
+ * per ticker
+ *   unsigned short length, UTF-8 name
+ *   long  CSV size in bytes
+ *   long  CSV last modified time in milliseconds
+ *   int   row count, n
+ *   n *   int epoch day
+ *   n *   double close
+ * </pre>
+ * <p>
+ * The file is read into memory and closed rather than mapped, so it can be replaced while a store is open, which a
+ * live mapping prevents on Windows. A ticker's columns are only decoded when it is requested.
+ * </p>
+ */
+final class PriceStore {
+    static final int MAGIC = 0x4D564F50;
+    static final int VERSION = 1;
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final PriceStore EMPTY = new PriceStore(ByteBuffer.allocate(0), Map.of());
+    private final ByteBuffer buffer;
+    private final Map<String, Location> locations;
+
+    private PriceStore(ByteBuffer buffer, Map<String, Location> locations) {
+        this.buffer = buffer;
+        this.locations = locations;
+    }
+
+    /**
+     * Reads a price store into memory.
+     *
+     * @param path price store file
+     * @return price store, empty if the file does not exist or cannot be read
+     */
+    static PriceStore open(Path path) {
+        if (!Files.exists(path)) {
+            return EMPTY;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Price store of %s bytes is too large".formatted(length));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until full or end of file
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                LOGGER.warn("Ignoring price store {} of another version", path);
+                return EMPTY;
+            }
+            int count = buffer.getInt();
+            Map<String, Location> locations = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(name);
+                long size = buffer.getLong();
+                long lastModified = buffer.getLong();
+                int rows = buffer.getInt();
+                locations.put(new String(name, StandardCharsets.UTF_8),
+                              new Location(size, lastModified, buffer.position(), rows));
+                buffer.position(buffer.position() + rows * (Integer.BYTES + Double.BYTES));
+            }
+            return new PriceStore(buffer, locations);
+        } catch (Exception e) {
+            LOGGER.warn("Ignoring unreadable price store {}", path, e);
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Gets the number of tickers in the store.
+     *
+     * @return number of tickers
+     */
+    int size() {
+        return locations.size();
+    }
+
+    /**
+     * Gets the prices of a ticker, if they were parsed from a CSV of the same size and last modified time.
+     *
+     * @param name         ticker name
+     * @param size         current size of the CSV in bytes
+     * @param lastModified current last modified time of the CSV in milliseconds
+     * @return prices, or null if not stored or stale
+     */
+    PriceSeries get(String name, long size, long lastModified) {
+        Location location = locations.get(name);
+        if (location == null || location.size != size || location.lastModified != lastModified) {
+            return null;
+        }
+        int[] epochDays = new int[location.rows];
+        double[] closes = new double[location.rows];
+        int daysBytes = location.rows * Integer.BYTES;
+        buffer.slice(location.offset, daysBytes).asIntBuffer().get(epochDays);
+        buffer.slice(location.offset + daysBytes, location.rows * Double.BYTES).asDoubleBuffer().get(closes);
+        return new PriceSeries(name, epochDays, closes);
+    }
+
+    /**
+     * Writes a price store, replacing the file atomically.
+     *
+     * @param path    price store file
+     * @param entries prices and the CSV versions they were parsed from
+     * @throws IOException on error writing
+     */
+    static void write(Path path, List<Entry> entries) throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "prices.", ".bin.temp");
+        try (OutputStream outputStream = Files.newOutputStream(temp);
+             BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+             DataOutputStream output = new DataOutputStream(bufferedOutputStream)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(entries.size());
+            for (Entry entry : entries) {
+                byte[] name = entry.series.name().getBytes(StandardCharsets.UTF_8);
+                output.writeShort(name.length);
+                output.write(name);
+                output.writeLong(entry.size);
+                output.writeLong(entry.lastModified);
+                output.writeInt(entry.series.size());
+                for (int epochDay : entry.series.epochDays()) {
+                    output.writeInt(epochDay);
+                }
+                for (double close : entry.series.closes()) {
+                    output.writeDouble(close);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Prices of a ticker and the version of the CSV they were parsed from.
+     */
+    static final class Entry {
+        private final PriceSeries series;
+        private final long size;
+        private final long lastModified;
+
+        /**
+         * Constructor.
+         *
+         * @param series       all prices of the CSV
+         * @param size         size of the CSV in bytes
+         * @param lastModified last modified time of the CSV in milliseconds
+         */
+        Entry(PriceSeries series, long size, long lastModified) {
+            this.series = series;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        PriceSeries series() {
+            return series;
+        }
+    }
+
+    /**
+     * Where a ticker's columns are in the file.
+     */
+    private static final class Location {
+        private final long size;
+        private final long lastModified;
+        private final int offset;
+        private final int rows;
+
+        private Location(long size, long lastModified, int offset, int rows) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.offset = offset;
+            this.rows = rows;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import jdk.incubator.vector.VectorSpecies;
 
 public class Statistics {
     private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** Whether to use the Vector API kernels, set -Dmvo.statistics.scalar=true to use the scalar ones. */
+    private static final boolean VECTORIZED = !Boolean.getBoolean("mvo.statistics.scalar");
 
     /**
      * Computes the Arithmetic Mean of the provided array.
@@ -14,16 +16,17 @@ public class Statistics {
      * @return arithmetic mean
      */
     public static double mean(double[] doubles) {
-        double sum = 0;
+        var sum = DoubleVector.zero(DOUBLE_SPECIES);
         int i = 0;
         int upperBound = DOUBLE_SPECIES.loopBound(doubles.length);
         for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
-            sum += DoubleVector.fromArray(DOUBLE_SPECIES, doubles, i).reduceLanes(VectorOperators.ADD);
+            sum = sum.add(DoubleVector.fromArray(DOUBLE_SPECIES, doubles, i));
         }
+        double total = sum.reduceLanes(VectorOperators.ADD);
         for (; i < doubles.length; i++) {
-            sum += doubles[i];
+            total += doubles[i];
         }
-        return sum / doubles.length;
+        return total / doubles.length;
     }
 
     /**
@@ -35,18 +38,145 @@ public class Statistics {
      * @see #mean(double[])
      */
     public static double variance(double[] doubles, double mean) {
-        double variance = 0;
+        var sum = DoubleVector.zero(DOUBLE_SPECIES);
         int i = 0;
         int upperBound = DOUBLE_SPECIES.loopBound(doubles.length);
         for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
             var delta = DoubleVector.fromArray(DOUBLE_SPECIES, doubles, i).sub(mean);
-            variance += delta.mul(delta).reduceLanes(VectorOperators.ADD);
+            sum = delta.fma(delta, sum);
         }
-
+        double variance = sum.reduceLanes(VectorOperators.ADD);
         for (; i < doubles.length; i++) {
             double delta = doubles[i] - mean;
             variance += delta * delta;
         }
         return variance / doubles.length;
     }
+
+    /**
+     * Computes the arithmetic mean and variance of the day over day returns ({@code values[i + 1] / values[i]}) of a
+     * value series in a single pass, without materializing the returns.
+     * <p>
+     * Returns are shifted by the first return before their sum and sum of squares are accumulated, so the variance
+     * does not suffer from catastrophic cancellation when the returns are all close to 1.
+     * </p>
+     *
+     * @param values          value per day, must have at least 2 elements
+     * @param meanAndVariance array where mean and variance are stored in index 0 and 1
+     */
+    public static void returnsMeanAndVariance(double[] values, double[] meanAndVariance) {
+        if (VECTORIZED) {
+            returnsMeanAndVarianceVector(values, meanAndVariance);
+        } else {
+            returnsMeanAndVarianceScalar(values, meanAndVariance);
+        }
+    }
+
+    /**
+     * Computes the arithmetic mean and variance of the day over day returns of the value series
+     * {@code base[i] + k * delta[i]}, without materializing the series or the returns.
+     *
+     * @param base            base value per day, must have at least 2 elements
+     * @param delta           value added to the base per day per unit of {@code k}, same length as {@code base}
+     * @param k               coefficient of {@code delta}
+     * @param meanAndVariance array where mean and variance are stored in index 0 and 1
+     * @see #returnsMeanAndVariance(double[], double[])
+     */
+    public static void returnsMeanAndVariance(double[] base, double[] delta, double k, double[] meanAndVariance) {
+        if (VECTORIZED) {
+            returnsMeanAndVarianceVector(base, delta, k, meanAndVariance);
+        } else {
+            returnsMeanAndVarianceScalar(base, delta, k, meanAndVariance);
+        }
+    }
+
+
+    static void returnsMeanAndVarianceVector(double[] values, double[] meanAndVariance) {
+        int n = values.length - 1;
+        double shift = values[1] / values[0];
+        var sum = DoubleVector.zero(DOUBLE_SPECIES);
+        var sumOfSquares = DoubleVector.zero(DOUBLE_SPECIES);
+        int i = 0;
+        int upperBound = DOUBLE_SPECIES.loopBound(n);
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            var previous = DoubleVector.fromArray(DOUBLE_SPECIES, values, i);
+            var current = DoubleVector.fromArray(DOUBLE_SPECIES, values, i + 1);
+            var shifted = current.div(previous).sub(shift);
+            sum = sum.add(shifted);
+            sumOfSquares = shifted.fma(shifted, sumOfSquares);
+        }
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        double ss = sumOfSquares.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            double shifted = values[i + 1] / values[i] - shift;
+            s += shifted;
+            ss += shifted * shifted;
+        }
+        finish(s, ss, n, shift, meanAndVariance);
+    }
+
+    static void returnsMeanAndVarianceVector(double[] base, double[] delta, double k, double[] meanAndVariance) {
+        int n = base.length - 1;
+        double shift = (base[1] + k * delta[1]) / (base[0] + k * delta[0]);
+        var coefficient = DoubleVector.broadcast(DOUBLE_SPECIES, k);
+        var sum = DoubleVector.zero(DOUBLE_SPECIES);
+        var sumOfSquares = DoubleVector.zero(DOUBLE_SPECIES);
+        int i = 0;
+        int upperBound = DOUBLE_SPECIES.loopBound(n);
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            var previous = DoubleVector.fromArray(DOUBLE_SPECIES, delta, i)
+                                       .fma(coefficient, DoubleVector.fromArray(DOUBLE_SPECIES, base, i));
+            var current = DoubleVector.fromArray(DOUBLE_SPECIES, delta, i + 1)
+                                      .fma(coefficient, DoubleVector.fromArray(DOUBLE_SPECIES, base, i + 1));
+            var shifted = current.div(previous).sub(shift);
+            sum = sum.add(shifted);
+            sumOfSquares = shifted.fma(shifted, sumOfSquares);
+        }
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        double ss = sumOfSquares.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            double shifted = (base[i + 1] + k * delta[i + 1]) / (base[i] + k * delta[i]) - shift;
+            s += shifted;
+            ss += shifted * shifted;
+        }
+        finish(s, ss, n, shift, meanAndVariance);
+    }
+
+    static void returnsMeanAndVarianceScalar(double[] values, double[] meanAndVariance) {
+        int n = values.length - 1;
+        double shift = values[1] / values[0];
+        double s = 0;
+        double ss = 0;
+        for (int i = 0; i < n; i++) {
+            double shifted = values[i + 1] / values[i] - shift;
+            s += shifted;
+            ss += shifted * shifted;
+        }
+        finish(s, ss, n, shift, meanAndVariance);
+    }
+
+    static void returnsMeanAndVarianceScalar(double[] base, double[] delta, double k, double[] meanAndVariance) {
+        int n = base.length - 1;
+        double previous = base[0] + k * delta[0];
+        double shift = (base[1] + k * delta[1]) / previous;
+        double s = 0;
+        double ss = 0;
+        for (int i = 0; i < n; i++) {
+            double current = base[i + 1] + k * delta[i + 1];
+            double shifted = current / previous - shift;
+            s += shifted;
+            ss += shifted * shifted;
+            previous = current;
+        }
+        finish(s, ss, n, shift, meanAndVariance);
+    }
+
+    /**
+     * Converts the sum and sum of squares of {@code n} shifted values into their mean and variance.
+     */
+    private static void finish(double sum, double sumOfSquares, int n, double shift, double[] meanAndVariance) {
+        double shiftedMean = sum / n;
+        meanAndVariance[0] = shift + shiftedMean;
+        meanAndVariance[1] = Math.max(0, sumOfSquares / n - shiftedMean * shiftedMean);
+    }
 }
@@ -0,0 +1,153 @@
+package com.brandontoner.mvo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Generates a synthetic universe of price CSVs which {@link FileTickerProvider} can read, so performance work does not
+ * need real price data.
+ * <p>
+ * Prices follow geometric Brownian motions correlated through a single market factor: the daily log return of ticker
+ * {@code i} is {@code alpha_i + beta_i * m_t + sigma_i * e_it}, where {@code m_t} is the market's return and
+ * {@code e_it} is independent noise. The same seed always generates the same universe.
+ * </p>
+ * <p>
+ * Days are consecutive weekdays ending on the end date. {@link FileTickerProvider} only loads the last year of them.
+ * </p>
+ */
+public final class SyntheticMarket {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final double TRADING_DAYS = 252;
+    private static final double MARKET_DRIFT = 0.07 / TRADING_DAYS;
+    private static final double MARKET_VOLATILITY = 0.16 / Math.sqrt(TRADING_DAYS);
+
+    private SyntheticMarket() {
+        // noop
+    }
+
+    /**
+     * Generates a universe, from the command line.
+     *
+     * @param args output directory, number of tickers, number of days and optionally the seed, 42 by default
+     * @throws IOException on error writing
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: SyntheticMarket <output directory> <tickers> <days> [seed]");
+            System.exit(1);
+        }
+        write(Path.of(args[0]),
+              Integer.parseInt(args[1]),
+              Integer.parseInt(args[2]),
+              args.length > 3 ? Long.parseLong(args[3]) : 42,
+              LocalDate.now());
+    }
+
+    /**
+     * Writes a CSV per ticker into a directory.
+     *
+     * @param dir         directory to write to, created if needed
+     * @param tickerCount number of tickers
+     * @param dayCount    number of days
+     * @param seed        seed of the generator
+     * @param endDate     last day, moved back to a weekday
+     * @throws IOException on error writing
+     */
+    public static void write(Path dir, int tickerCount, int dayCount, long seed, LocalDate endDate)
+            throws IOException {
+        final long startTimeNs = System.nanoTime();
+        Files.createDirectories(dir);
+        LocalDate[] dates = weekdays(endDate, dayCount);
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] market = new double[dayCount];
+        SplittableRandom marketRandom = random.split();
+        for (int day = 0; day < dayCount; day++) {
+            market[day] = MARKET_DRIFT - MARKET_VOLATILITY * MARKET_VOLATILITY / 2
+                          + MARKET_VOLATILITY * marketRandom.nextGaussian();
+        }
+        // split serially so each ticker's stream does not depend on the order the tickers are written in
+        SplittableRandom[] tickerRandoms = new SplittableRandom[tickerCount];
+        for (int i = 0; i < tickerCount; i++) {
+            tickerRandoms[i] = random.split();
+        }
+        try {
+            IntStream.range(0, tickerCount).parallel().forEach(i -> {
+                try {
+                    writeTicker(dir.resolve(tickerName(i) + ".csv"), dates, market, tickerRandoms[i]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long endTimeNs = System.nanoTime();
+        LOGGER.info("Wrote {} tickers of {} days to {} in {} seconds",
+                    tickerCount,
+                    dayCount,
+                    dir,
+                    (endTimeNs - startTimeNs) / 1e9);
+    }
+
+    private static void writeTicker(Path file, LocalDate[] dates, double[] market, SplittableRandom random)
+            throws IOException {
+        double beta = random.nextDouble(0.5, 1.5);
+        double alpha = random.nextGaussian() * 0.03 / TRADING_DAYS;
+        double sigma = random.nextDouble(0.1, 0.5) / Math.sqrt(TRADING_DAYS);
+        double logPrice = Math.log(random.nextDouble(10, 200));
+        StringBuilder line = new StringBuilder();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("Date,Open,High,Low,Close,Adj Close,Volume\n");
+            for (int day = 0; day < dates.length; day++) {
+                logPrice += alpha + beta * market[day] - sigma * sigma / 2 + sigma * random.nextGaussian();
+                String close = String.format(Locale.ROOT, "%.6f", Math.exp(logPrice));
+                line.setLength(0);
+                line.append(dates[day]).append(',')
+                    .append(close).append(',')
+                    .append(close).append(',')
+                    .append(close).append(',')
+                    .append(close).append(',')
+                    .append(close).append(',')
+                    .append(1_000_000).append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+    /**
+     * Gets the name of a ticker, a bijective base 26 numeral in the letters A to Z, as ticker file names are letters.
+     *
+     * @param index index of the ticker
+     * @return A, B, ..., Z, AA, AB, ...
+     */
+    static String tickerName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.append((char) ('A' + (i - 1) % 26));
+        }
+        return name.reverse().toString();
+    }
+
+    private static LocalDate[] weekdays(LocalDate endDate, int dayCount) {
+        LocalDate[] dates = new LocalDate[dayCount];
+        LocalDate date = endDate;
+        for (int day = dayCount - 1; day >= 0; day--) {
+            while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                date = date.minusDays(1);
+            }
+            dates[day] = date;
+            date = date.minusDays(1);
+        }
+        return dates;
+    }
+}
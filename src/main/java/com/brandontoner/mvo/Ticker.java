@@ -1,6 +1,7 @@
 package com.brandontoner.mvo;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.SortedMap;
@@ -9,30 +10,63 @@ import java.util.TreeMap;
 public class Ticker {
     /** Ticker name. */
     private final String name;
-    /** Map of date to closing price for that day. */
-    private final SortedMap<LocalDate, Double> closingPrices;
-    /** Closing price per day. */
-    private final double[] closingPricesArray;
-    /** Array of closing prices multiplied by the index. */
-    private final double[][] closingPricesArrayCache;
+    /** Days since 1970-01-01 of each column of the price matrix, shared by the universe. */
+    private final int[] epochDays;
+    /** Matrix holding the closing price per day of this ticker. */
+    private final PriceMatrix priceMatrix;
+    /** Row of this ticker in the price matrix. */
+    private final int row;
+    /** Map of date to closing price for that day, built on first use. */
+    private volatile SortedMap<LocalDate, Double> closingPrices;
 
     /**
-     * Constructor.
+     * Constructor, the closing prices are stored in a price matrix of their own.
      *
      * @param name          ticker name
      * @param closingPrices map of date to closing price
      */
     public Ticker(String name, Map<LocalDate, Double> closingPrices) {
-        this.name = name;
-        this.closingPrices = Collections.unmodifiableSortedMap(new TreeMap<>(closingPrices));
-        this.closingPricesArray = this.closingPrices.values().stream().mapToDouble(Double::doubleValue).toArray();
-        closingPricesArrayCache = new double[1001][];
-        for (int i = 0; i < closingPricesArrayCache.length; ++i) {
-            closingPricesArrayCache[i] = new double[closingPricesArray.length];
-            for (int j = 0; j < closingPricesArray.length; j++) {
-                closingPricesArrayCache[i][j] = closingPricesArray[j] * i;
-            }
+        this(name, closingPrices, new PriceMatrix(1, closingPrices.size()), 0);
+    }
+
+    /**
+     * Constructor, the closing prices are stored in a row of a price matrix shared with the rest of the universe.
+     *
+     * @param name          ticker name
+     * @param closingPrices map of date to closing price, must have as many entries as the matrix has days
+     * @param priceMatrix   matrix to store the closing prices in
+     * @param row           row of the matrix to store the closing prices in
+     */
+    Ticker(String name, Map<LocalDate, Double> closingPrices, PriceMatrix priceMatrix, int row) {
+        this(name, epochDays(new TreeMap<>(closingPrices)), priceMatrix, row);
+        priceMatrix.setRow(row, closes(new TreeMap<>(closingPrices)));
+    }
+
+    /**
+     * Constructor for a ticker whose closing prices are already in a row of the price matrix. Nothing is copied.
+     *
+     * @param name        ticker name
+     * @param epochDays   days since 1970-01-01 of each column of the matrix, strictly increasing, not modified
+     * @param priceMatrix matrix holding the closing prices
+     * @param row         row of the matrix holding the closing prices
+     */
+    Ticker(String name, int[] epochDays, PriceMatrix priceMatrix, int row) {
+        if (epochDays.length != priceMatrix.dayCount()) {
+            throw new IllegalArgumentException("Expected %s days, got %s".formatted(priceMatrix.dayCount(),
+                                                                                   epochDays.length));
         }
+        this.name = name;
+        this.epochDays = epochDays;
+        this.priceMatrix = priceMatrix;
+        this.row = row;
+    }
+
+    private static int[] epochDays(SortedMap<LocalDate, Double> closingPrices) {
+        return closingPrices.keySet().stream().mapToInt(date -> (int) date.toEpochDay()).toArray();
+    }
+
+    private static double[] closes(SortedMap<LocalDate, Double> closingPrices) {
+        return closingPrices.values().stream().mapToDouble(Double::doubleValue).toArray();
     }
 
     /**
@@ -50,24 +84,44 @@ public class Ticker {
      * @return map of date to closing price for that day
      */
     public SortedMap<LocalDate, Double> getClosingPrices() {
-        return closingPrices;
+        SortedMap<LocalDate, Double> map = closingPrices;
+        if (map == null) {
+            SortedMap<LocalDate, Double> built = new TreeMap<>();
+            int offset = getOffset();
+            for (int day = 0; day < epochDays.length; day++) {
+                built.put(LocalDate.ofEpochDay(epochDays[day]), priceMatrix.prices()[offset + day]);
+            }
+            map = Collections.unmodifiableSortedMap(built);
+            closingPrices = map;
+        }
+        return map;
     }
 
     /**
      * Gets the array of closing prices per day.
      *
-     * @return array of closing prices per day
+     * @return copy of the closing prices per day
      */
     public double[] getClosingPricesArray() {
-        return closingPricesArray;
+        int offset = getOffset();
+        return Arrays.copyOfRange(priceMatrix.prices(), offset, offset + priceMatrix.dayCount());
+    }
+
+    /**
+     * Gets the matrix holding the closing prices of this ticker.
+     *
+     * @return price matrix
+     */
+    public PriceMatrix getPriceMatrix() {
+        return priceMatrix;
     }
 
     /**
-     * Gets the closing prices multiplied by a coefficient.
+     * Gets the index of this ticker's first closing price in {@link PriceMatrix#prices()}.
      *
-     * @param coef value to multiply the closing prices by
+     * @return offset of this ticker's row
      */
-    public double[] getClosingPricesArray(int coef) {
-        return closingPricesArrayCache[coef];
+    public int getOffset() {
+        return priceMatrix.offset(row);
     }
 }
@@ -0,0 +1,325 @@
+package com.brandontoner.mvo;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link EfficientFrontier} backed by a treap (randomized balanced binary search tree) keyed on mean, where every
+ * node knows the size of its subtree.
+ * <p>
+ * Inserting is O(log n), removing the k portfolios a new one dominates is O(log n) regardless of k since they form a
+ * contiguous range which is split off, and {@link #get(int)} is O(log n). Not thread safe.
+ * </p>
+ */
+public class TreeMeanVarianceSet extends AbstractCollection<Portfolio> implements EfficientFrontier {
+    /** Root of the treap, null if empty. */
+    private Node root;
+    /** Number of structural modifications, used to make iterators fail fast. */
+    private int modCount;
+
+    public TreeMeanVarianceSet() {
+        // noop
+    }
+
+    public TreeMeanVarianceSet(Collection<Portfolio> expected) {
+        addAll(expected);
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Portfolio portfolio)) {
+            return false;
+        }
+        Node node = ceiling(portfolio.mean());
+        return node != null && node.portfolio.equals(portfolio);
+    }
+
+    @Override
+    public Iterator<Portfolio> iterator() {
+        return new TreeIterator();
+    }
+
+    @Override
+    public Portfolio get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index %s out of bounds for length %s".formatted(index, size()));
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.portfolio;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public boolean add(Portfolio portfolio) {
+        if (isDominated(portfolio.mean(), portfolio.variance())) {
+            return false;
+        }
+        insert(portfolio);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} The portfolio with the smallest mean greater than or equal to {@code mean} has the lowest variance
+     * of all such portfolios, so it is the only one which needs checking.
+     */
+    @Override
+    public boolean isDominated(double mean, double variance) {
+        Node ceiling = ceiling(mean);
+        return ceiling != null && ceiling.portfolio.variance() <= variance;
+    }
+
+    /**
+     * Inserts a portfolio which is not dominated, removing all the portfolios it dominates.
+     */
+    private void insert(Portfolio portfolio) {
+        final double mean = portfolio.mean();
+        final double variance = portfolio.variance();
+        Node[] parts = new Node[2];
+        split(root, p -> p.mean() < mean, parts);
+        Node lower = parts[0];
+        Node higher = parts[1];
+        // at most one portfolio with an equal mean, it has a higher variance or the new one would be dominated
+        split(higher, p -> p.mean() <= mean, parts);
+        higher = parts[1];
+        // portfolios with a lower mean and a higher variance form a suffix of lower
+        split(lower, p -> p.variance() < variance, parts);
+        lower = parts[0];
+        root = merge(merge(lower, new Node(portfolio)), higher);
+        modCount++;
+    }
+
+    /**
+     * Finds the node with the smallest mean greater than or equal to {@code mean}.
+     *
+     * @return node, or null if there is none
+     */
+    private Node ceiling(double mean) {
+        Node node = root;
+        Node ceiling = null;
+        while (node != null) {
+            if (node.portfolio.mean() >= mean) {
+                ceiling = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return ceiling;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        double mean = ((Portfolio) o).mean();
+        Node[] parts = new Node[2];
+        split(root, p -> p.mean() < mean, parts);
+        Node lower = parts[0];
+        split(parts[1], p -> p.mean() <= mean, parts);
+        root = merge(lower, parts[1]);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(@Nonnull Collection<?> c) {
+        return rebuild(p -> !c.contains(p));
+    }
+
+    @Override
+    public boolean retainAll(@Nonnull Collection<?> c) {
+        return rebuild(c::contains);
+    }
+
+    /**
+     * Rebuilds the tree from the portfolios matching a predicate.
+     *
+     * @return true if any portfolio was removed
+     */
+    private boolean rebuild(Predicate<Portfolio> keep) {
+        List<Portfolio> kept = new ArrayList<>();
+        for (Portfolio portfolio : this) {
+            if (keep.test(portfolio)) {
+                kept.add(portfolio);
+            }
+        }
+        if (kept.size() == size()) {
+            return false;
+        }
+        clear();
+        for (Portfolio portfolio : kept) {
+            root = merge(root, new Node(portfolio));
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        modCount++;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        TreeMeanVarianceSet that = (TreeMeanVarianceSet) o;
+        if (size() != that.size()) {
+            return false;
+        }
+        Iterator<Portfolio> thatIterator = that.iterator();
+        for (Portfolio portfolio : this) {
+            if (!portfolio.equals(thatIterator.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (Portfolio portfolio : this) {
+            hashCode = 31 * hashCode + portfolio.hashCode();
+        }
+        return hashCode;
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Splits a tree in two, the first containing the prefix of nodes matching {@code left}, the second the rest.
+     *
+     * @param node   root of the tree to split
+     * @param left   predicate which is true for a prefix of the tree and false for the remainder
+     * @param output array where the roots of the two trees are stored in index 0 and 1
+     */
+    private static void split(Node node, Predicate<Portfolio> left, Node[] output) {
+        if (node == null) {
+            output[0] = null;
+            output[1] = null;
+        } else if (left.test(node.portfolio)) {
+            split(node.right, left, output);
+            node.right = output[0];
+            node.update();
+            output[0] = node;
+        } else {
+            split(node.left, left, output);
+            node.left = output[1];
+            node.update();
+            output[1] = node;
+        }
+    }
+
+    /**
+     * Merges two trees, all nodes of {@code a} must come before all nodes of {@code b}.
+     *
+     * @return root of the merged tree
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
+    }
+
+    private static final class Node {
+        private final Portfolio portfolio;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Portfolio portfolio) {
+            this.portfolio = portfolio;
+        }
+
+        private void update() {
+            size = 1 + TreeMeanVarianceSet.sizeOf(left) + TreeMeanVarianceSet.sizeOf(right);
+        }
+    }
+
+    /**
+     * In order iterator.
+     */
+    private final class TreeIterator implements Iterator<Portfolio> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+
+        private TreeIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node node) {
+            for (; node != null; node = node.left) {
+                stack.push(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Portfolio next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack.pop();
+            pushLeft(node.right);
+            return node.portfolio;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.brandontoner.mvo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free set of 64 bit hashes of count vectors which have already been evaluated.
+ * <p>
+ * The frontier only ever improves, so a count vector which has been offered to it once would be rejected if offered
+ * again, and generators can skip evaluating it. Hashes are kept in an open addressing table of fixed size. When all
+ * the slots a hash may probe are taken, one of them is overwritten, so the set forgets old entries instead of growing.
+ * Forgetting only costs a re-evaluation. A false positive needs a 64 bit hash collision.
+ * </p>
+ * <p>
+ * The hash of a count vector is {@code sum(counts[i] * r(i))} for a pseudo random {@code r}, so moving {@code k} units
+ * from one ticker to another updates it in O(1), see {@link #move(long, int, int, int)}.
+ * </p>
+ */
+public final class VisitedSet {
+    /** Number of consecutive slots a hash may be stored in. */
+    private static final int PROBES = 8;
+    private final AtomicLongArray table;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param capacityLog2 log base 2 of the number of hashes the set can hold, uses 8 bytes per hash
+     */
+    public VisitedSet(int capacityLog2) {
+        table = new AtomicLongArray(1 << capacityLog2);
+        mask = table.length() - 1;
+    }
+
+    /**
+     * Hashes a count vector.
+     *
+     * @param counts count array
+     * @return hash
+     */
+    public static long hash(int[] counts) {
+        long hash = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                hash += counts[i] * tickerHash(i);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the count vector of holdings, equal to {@link #hash(int[])} of its counts.
+     *
+     * @param holdings holdings
+     * @return hash
+     */
+    public static long hash(Holdings holdings) {
+        long hash = 0;
+        for (int i = 0; i < holdings.size(); i++) {
+            hash += holdings.count(i) * tickerHash(holdings.index(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Updates the hash of a count vector for {@code k} units moved from ticker {@code from} to ticker {@code to}.
+     *
+     * @param hash hash of the count vector before the move
+     * @param from index of the ticker units are taken from
+     * @param to   index of the ticker units are given to
+     * @param k    number of units moved
+     * @return hash of the count vector after the move
+     */
+    public static long move(long hash, int from, int to, int k) {
+        return hash + k * (tickerHash(to) - tickerHash(from));
+    }
+
+    private static long tickerHash(int index) {
+        return mix(index * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L);
+    }
+
+    /**
+     * Stafford's variant 13 of the MurmurHash3 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Records a hash as visited.
+     *
+     * @param hash hash of a count vector
+     * @return true if the hash had already been visited, else false
+     */
+    public boolean checkAndAdd(long hash) {
+        // the hash is linear in the counts, mix it so neighbors spread across the table
+        long key = mix(hash);
+        if (key == 0) {
+            key = 1;
+        }
+        int start = (int) key & mask;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int index = (start + probe) & mask;
+            long value = table.get(index);
+            if (value == 0) {
+                if (table.compareAndSet(index, 0, key)) {
+                    misses.increment();
+                    return false;
+                }
+                value = table.get(index);
+            }
+            if (value == key) {
+                hits.increment();
+                return true;
+            }
+        }
+        table.set((start + (int) (key >>> 32 & (PROBES - 1))) & mask, key);
+        evictions.increment();
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Gets the number of lookups which found the hash already visited, each is an evaluation saved.
+     *
+     * @return number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups which did not find the hash.
+     *
+     * @return number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of hashes which were overwritten to make room for another.
+     *
+     * @return number of evictions
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups which were hits.
+     *
+     * @return hit rate, 0 if there were no lookups
+     */
+    public double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "VisitedSet{hits=%s, misses=%s, evictions=%s, hitRate=%.4f}".formatted(hits(),
+                                                                                      misses(),
+                                                                                      evictions(),
+                                                                                      hitRate());
+    }
+}
@@ -0,0 +1,108 @@
+package com.brandontoner.mvo;
+
+import static com.brandontoner.mvo.TestFixtures.createTicker;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryFrontierSerializerTest {
+    private final Ticker[] tickers = {createTicker("a"), createTicker("b"), createTicker("c")};
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void writeTo_load_roundTrips() throws IOException {
+        MeanVarianceSet frontier = new MeanVarianceSet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 200; i++) {
+            frontier.add(PortfolioFactory.get(tickers, new int[] {random.nextInt(1000), 0, random.nextInt(200)}));
+        }
+        new BinaryFrontierSerializer(outputDir).writeTo(frontier);
+
+        assertEquals(frontier, new BinaryFrontierSerializer(outputDir).load(tickers));
+    }
+
+    @Test
+    void writeTo_load_emitsEvents() throws IOException {
+        Path recordingPath = outputDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MvoEvents.CacheWrite.class).withoutThreshold();
+            recording.enable(MvoEvents.CacheLoad.class).withoutThreshold();
+            recording.start();
+            new BinaryFrontierSerializer(outputDir).writeTo(List.of(new Portfolio(tickers, new int[] {1, 2, 3}, 1, 1)));
+            new BinaryFrontierSerializer(outputDir).load(tickers);
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingPath);
+        assertEquals(List.of("com.brandontoner.mvo.CacheWrite", "com.brandontoner.mvo.CacheLoad"),
+                     events.stream().map(event -> event.getEventType().getName()).toList());
+        assertEquals("binary", events.get(0).getString("format"));
+        assertEquals(1, events.get(0).getInt("entries"));
+        assertEquals(outputDir.resolve("cache.bin").toFile().length(), events.get(0).getLong("bytes"));
+        assertEquals(1, events.get(1).getInt("valid"));
+        assertTrue(events.get(1).getBoolean("statisticsReused"));
+    }
+
+    @Test
+    void load_changedTickers_remapsAndRecomputes() throws IOException {
+        new BinaryFrontierSerializer(outputDir).writeTo(List.of(new Portfolio(tickers, new int[] {1, 0, 300}, 1, 1),
+                                                                new Portfolio(tickers, new int[] {0, 2, 0}, 2, 2)));
+        // b is gone, so the portfolio holding it is dropped
+        Ticker[] changed = {createTicker("a"), createTicker("c"), createTicker("d")};
+
+        assertEquals(List.of(PortfolioFactory.get(changed, new int[] {1, 300, 0})),
+                     List.copyOf(new BinaryFrontierSerializer(outputDir).load(changed)));
+    }
+
+    @Test
+    void mappedFrontier() throws IOException {
+        new BinaryFrontierSerializer(outputDir).writeTo(List.of(new Portfolio(tickers, new int[] {5, 0, 0}, 1, 1),
+                                                                new Portfolio(tickers, new int[] {0, 128, 1}, 2, 3),
+                                                                new Portfolio(tickers, new int[] {1, 1, 1}, 4, 5)));
+
+        MappedFrontier frontier = MappedFrontier.open(outputDir.resolve("cache.bin"));
+        assertEquals(FrontierSerializer.fingerprint(tickers), frontier.fingerprint());
+        assertEquals(List.of("a", "b", "c"), frontier.tickerNames());
+        assertEquals(3, frontier.size());
+        assertEquals(2, frontier.mean(1));
+        assertEquals(3, frontier.variance(1));
+        assertArrayEquals(new int[] {0, 128, 1}, frontier.counts(1));
+        assertEquals(2, frontier.indexOfMean(4));
+        assertEquals(-3, frontier.indexOfMean(3));
+        assertTrue(frontier.isDominated(3, 5));
+        assertFalse(frontier.isDominated(3, 4));
+        assertFalse(frontier.isDominated(5, 100));
+    }
+
+    @Test
+    void load_truncatedFile_isEmpty() throws IOException {
+        new BinaryFrontierSerializer(outputDir).writeTo(List.of(new Portfolio(tickers, new int[] {5, 0, 0}, 1, 1),
+                                                                new Portfolio(tickers, new int[] {0, 128, 1}, 2, 3)));
+        Path path = outputDir.resolve("cache.bin");
+        byte[] bytes = Files.readAllBytes(path);
+        // the header is intact, the counts are cut off
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertTrue(new BinaryFrontierSerializer(outputDir).load(tickers).isEmpty());
+    }
+
+    @Test
+    void load_missingFile_isEmpty() {
+        assertTrue(new BinaryFrontierSerializer(outputDir).load(tickers).isEmpty());
+    }
+}
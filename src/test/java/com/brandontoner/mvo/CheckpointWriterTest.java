@@ -0,0 +1,73 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class CheckpointWriterTest {
+    private static final Ticker[] TICKERS = {new Ticker("A", Map.of())};
+    private final FrontierSerializer frontierSerializer = mock(FrontierSerializer.class);
+    private final Metrics metrics = new Metrics();
+    private final CheckpointWriter checkpointWriter = new CheckpointWriter(frontierSerializer, metrics);
+
+    @Test
+    void request_whileWriting_coalesces() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            written.add(((List<?>) invocation.getArgument(0)).size());
+            return null;
+        }).when(frontierSerializer).writeTo(any());
+
+        MeanVarianceSet frontier = new MeanVarianceSet();
+        frontier.add(new Portfolio(TICKERS, new int[] {1}, 1, 1));
+        checkpointWriter.request(frontier);
+        started.await();
+        for (int i = 2; i <= 4; i++) {
+            frontier.add(new Portfolio(TICKERS, new int[] {i}, i, i));
+            checkpointWriter.request(frontier);
+        }
+        assertEquals(2, checkpointWriter.queueDepth());
+        release.countDown();
+        checkpointWriter.flush();
+
+        // the first write, then only the latest of the three requested while it was in flight
+        assertEquals(List.of(1, 4), written);
+        assertEquals(4, checkpointWriter.requests());
+        assertEquals(2, checkpointWriter.coalesced());
+        assertEquals(4, metrics.values().get("mvo_checkpoint_requests_total"));
+        assertEquals(2, metrics.values().get("mvo_checkpoint_coalesced_total"));
+        assertEquals(2, checkpointWriter.writes());
+        assertEquals(0, checkpointWriter.queueDepth());
+    }
+
+    @Test
+    void request_writeFails_keepsWriting() throws Exception {
+        doThrow(new IOException("disk full")).doNothing().when(frontierSerializer).writeTo(any());
+
+        checkpointWriter.request(new MeanVarianceSet());
+        checkpointWriter.flush();
+        checkpointWriter.request(new MeanVarianceSet());
+        checkpointWriter.close();
+
+        assertEquals(1, checkpointWriter.failures());
+        StringBuilder output = new StringBuilder();
+        metrics.writePrometheus(output);
+        assertTrue(output.toString()
+                         .contains("# TYPE mvo_checkpoint_failures_total counter\nmvo_checkpoint_failures_total 1\n"));
+        assertEquals(1, checkpointWriter.writes());
+    }
+}
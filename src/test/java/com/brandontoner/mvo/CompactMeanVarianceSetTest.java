@@ -0,0 +1,87 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CompactMeanVarianceSetTest {
+    private final Ticker[] tickers = {new Ticker("a", Map.of()), new Ticker("b", Map.of())};
+    private final CompactMeanVarianceSet set = new CompactMeanVarianceSet();
+
+    @Test
+    void add_matchesMeanVarianceSet() {
+        Random random = new Random(1234);
+        MeanVarianceSet expected = new MeanVarianceSet();
+        for (int i = 0; i < 10_000; i++) {
+            Portfolio portfolio = createPortfolio(random.nextInt(1000), random.nextInt(1000), random.nextInt(1000));
+            assertEquals(expected.add(portfolio), set.add(portfolio));
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), set.get(i));
+            assertTrue(set.contains(expected.get(i)));
+        }
+    }
+
+    @Test
+    void isDominated() {
+        set.add(createPortfolio(1, 1, 10));
+        set.add(createPortfolio(2, 3, 30));
+        assertTrue(set.isDominated(2, 30));
+        assertFalse(set.isDominated(2, 29));
+        assertTrue(set.isDominated(3, 30));
+        assertFalse(set.isDominated(4, 1_000));
+    }
+
+    @Test
+    void add_replacedRepeatedly_keepsLatestHoldings() {
+        for (int i = 0; i < 1_000; i++) {
+            Holdings holdings = i % 2 == 0 ? Holdings.of(new int[] {i, 0}) : Holdings.of(new int[] {i, i});
+            assertTrue(set.add(new Portfolio(tickers, holdings, 1, 1_000 - i)));
+            assertEquals(1, set.size());
+            assertEquals(holdings, set.get(0).holdings());
+        }
+    }
+
+    @Test
+    void add_differentTickers() {
+        set.add(createPortfolio(1, 0, 0));
+        Portfolio other = new Portfolio(new Ticker[] {new Ticker("c", Map.of())}, new int[] {1}, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> set.add(other));
+    }
+
+    @Test
+    void remove() {
+        Portfolio p1 = createPortfolio(1, 0, 0);
+        Portfolio p2 = createPortfolio(2, 1, 1);
+        Portfolio p3 = createPortfolio(3, 2, 2);
+        set.addAll(List.of(p1, p2, p3));
+        assertFalse(set.remove(createPortfolio(4, 1, 1)));
+        assertTrue(set.remove(p2));
+        assertEquals(List.of(p1, p3), new ArrayList<>(set));
+        assertTrue(set.add(createPortfolio(5, 1, 1)));
+        assertEquals(List.of(p1, createPortfolio(5, 1, 1), p3), new ArrayList<>(set));
+    }
+
+    @Test
+    void snapshot_unaffectedByModification() {
+        Portfolio p1 = createPortfolio(1, 0, 0);
+        set.add(p1);
+        List<Portfolio> snapshot = set.snapshot();
+        set.add(createPortfolio(2, 1, 0));
+        assertEquals(List.of(p1), snapshot);
+        assertEquals(List.of(createPortfolio(2, 1, 0)), set.snapshot());
+    }
+
+    private Portfolio createPortfolio(int count, double mean, double variance) {
+        return new Portfolio(tickers, new int[] {count, 2}, mean, variance);
+    }
+}
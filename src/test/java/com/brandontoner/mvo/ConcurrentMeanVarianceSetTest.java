@@ -0,0 +1,76 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentMeanVarianceSetTest {
+    private final ConcurrentMeanVarianceSet set = new ConcurrentMeanVarianceSet();
+
+    @Test
+    void isDominated() {
+        set.add(createPortfolio(1, 10));
+        set.add(createPortfolio(3, 30));
+        assertTrue(set.isDominated(2, 30));
+        assertFalse(set.isDominated(2, 29));
+        assertTrue(set.isDominated(3, 30));
+        assertFalse(set.isDominated(4, 1_000));
+    }
+
+    @Test
+    void add_higherMean_lowerVarianceThanMultiple() {
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(set.add(createPortfolio(i, i)));
+        }
+        Portfolio p1 = createPortfolio(10, 0);
+        assertTrue(set.add(p1));
+        assertEquals(List.of(p1), new ArrayList<>(set));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void add_equalMean() {
+        Portfolio p1 = createPortfolio(0, 1);
+        Portfolio p2 = createPortfolio(0, 0);
+        assertTrue(set.add(p1));
+        assertFalse(set.add(createPortfolio(0, 1)));
+        assertTrue(set.add(p2));
+        assertEquals(List.of(p2), set.snapshot());
+        assertTrue(set.contains(p2));
+        assertFalse(set.contains(p1));
+    }
+
+    @Test
+    void add_concurrent_matchesMeanVarianceSet() {
+        Random random = new Random(1234);
+        List<Portfolio> portfolios = IntStream.range(0, 100_000)
+                                              .mapToObj(i -> createPortfolio(random.nextInt(10_000),
+                                                                             random.nextInt(10_000)))
+                                              .toList();
+        portfolios.parallelStream().forEach(set::add);
+        assertEquals(new ArrayList<>(new MeanVarianceSet(portfolios)), set.snapshot());
+        assertEquals(set.snapshot().size(), set.size());
+    }
+
+    @Test
+    void snapshot_reusedUntilModified() {
+        set.add(createPortfolio(0, 0));
+        List<Portfolio> snapshot = set.snapshot();
+        assertSame(snapshot, set.snapshot());
+        set.add(createPortfolio(1, 1));
+        assertEquals(List.of(createPortfolio(0, 0)), snapshot);
+        assertEquals(2, set.snapshot().size());
+        assertEquals(createPortfolio(1, 1), set.get(1));
+    }
+
+    private static Portfolio createPortfolio(double mean, double variance) {
+        return new Portfolio(new Ticker[0], new int[0], mean, variance);
+    }
+}
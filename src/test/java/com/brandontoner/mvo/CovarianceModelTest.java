@@ -0,0 +1,66 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class CovarianceModelTest {
+    private final Random random = new Random(42);
+    private final Ticker[] tickers = {createTicker("a"), createTicker("b"), createTicker("c"), createTicker("d")};
+    private final CovarianceModel model = CovarianceModel.of(tickers);
+
+    @Test
+    void getMeanAndVariance_zeroMoveIsParent() {
+        Portfolio parent = PortfolioFactory.get(tickers, new int[] {30, 20, 10, 0});
+        double[] estimate = new double[2];
+        model.forParent(parent).getMeanAndVariance(0, 3, 0, 0.5, estimate);
+        assertEquals(parent.mean(), estimate[0], 1e-15);
+        assertEquals(parent.variance(), estimate[1], 1e-15);
+    }
+
+    @Test
+    void getMeanAndVariance_tracksExactChange() {
+        int[] counts = {30, 20, 10, 0};
+        Portfolio parent = PortfolioFactory.get(tickers, counts);
+        CovarianceModel.Scorer scorer = model.forParent(parent);
+        double[] estimate = new double[2];
+        for (int k = 1; k <= 10; k++) {
+            Portfolio exact = PortfolioFactory.get(tickers, new int[] {30 - k, 20, 10, k});
+            scorer.getMeanAndVariance(0, 3, k, 0, estimate);
+            double varianceChange = exact.variance() - parent.variance();
+            assertEquals(varianceChange, estimate[1] - parent.variance(), 0.25 * Math.abs(varianceChange));
+            double meanChange = exact.mean() - parent.mean();
+            assertEquals(meanChange, estimate[0] - parent.mean(), 0.25 * Math.abs(meanChange));
+        }
+    }
+
+    @Test
+    void getMeanAndVariance_marginIsOptimistic() {
+        Portfolio parent = PortfolioFactory.get(tickers, new int[] {5, 5, 5, 5});
+        CovarianceModel.Scorer scorer = model.forParent(parent);
+        double[] plain = new double[2];
+        double[] optimistic = new double[2];
+        for (int k = 1; k <= 5; k++) {
+            scorer.getMeanAndVariance(1, 2, k, 0, plain);
+            scorer.getMeanAndVariance(1, 2, k, 1, optimistic);
+            assertTrue(optimistic[0] > plain[0]);
+            assertTrue(optimistic[1] < plain[1]);
+        }
+    }
+
+    private Ticker createTicker(String name) {
+        Map<LocalDate, Double> closingPrices = new TreeMap<>();
+        LocalDate date = LocalDate.of(2022, 1, 1);
+        double price = 10 + 90 * random.nextDouble();
+        for (int i = 0; i < 252; i++) {
+            price *= 1 + 0.02 * random.nextGaussian();
+            closingPrices.put(date.plusDays(i), price);
+        }
+        return new Ticker(name, closingPrices);
+    }
+}
@@ -0,0 +1,94 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+class CsvPriceParserTest {
+    @Test
+    void parse() {
+        String csv = """
+                Date,Open,High,Low,Close,Adj Close,Volume\r
+                2022-01-03,10.5,11,10,10.75,10.7,1000\r
+                2022-01-04,null,null,null,null,null,null\r
+                2022-01-05,10.75,12,10.5,11.25,11.2,2000\r
+                2022-01-06,n,u,l,Infinity,l,3000\r
+                """;
+
+        PriceSeries series = CsvPriceParser.parse("A", ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("A", series.name());
+        assertArrayEquals(new int[] {epochDay("2022-01-03"), epochDay("2022-01-05"), epochDay("2022-01-06")},
+                          series.epochDays());
+        assertArrayEquals(new double[] {10.75, 11.25, Double.POSITIVE_INFINITY}, series.closes());
+    }
+
+    @Test
+    void parse_unsortedAndRepeatedDates_sortsKeepingLast() {
+        String csv = """
+                Date,Open,High,Low,Close,Adj Close,Volume
+                2022-01-05,0,0,0,3,0,0
+                2022-01-03,0,0,0,1,0,0
+                2022-01-05,0,0,0,4,0,0""";
+
+        PriceSeries series = CsvPriceParser.parse("A", ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertArrayEquals(new int[] {epochDay("2022-01-03"), epochDay("2022-01-05")}, series.epochDays());
+        assertArrayEquals(new double[] {1, 4}, series.closes());
+    }
+
+    @Test
+    void parse_missingClose_throws() {
+        byte[] csv = "Date,Open,High,Low,Close\n2022-01-03,1,2,3\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> CsvPriceParser.parse("A", ByteBuffer.wrap(csv)));
+    }
+
+    @Test
+    void epochDay_matchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.getYear() < 2101; date = date.plusDays(1)) {
+            assertEquals(date.toEpochDay(),
+                         CsvPriceParser.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+
+    @Test
+    void parseDouble_matchesDoubleParseDouble() {
+        String[] values = {"0", "-0", "1", "1.", ".5", "0.05", "123.456001", "-42.25", "+7", "1e3", "1.5E-2",
+                           "12345678901234567890", "0.1234567890123456789", "9999999999999999999",
+                           "0.9999999999999999999", "9007199254740993", "3.4028234663852886e38"};
+        for (String value : values) {
+            assertParseDouble(value);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            assertParseDouble(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(-3, 8))));
+            assertParseDouble("%.6f".formatted(random.nextDouble() * 1000));
+        }
+    }
+
+    @Test
+    void parseDouble_invalid_throws() {
+        assertThrows(NumberFormatException.class, () -> parseDouble("1.2.3"));
+        assertThrows(NumberFormatException.class, () -> parseDouble(""));
+        assertThrows(NumberFormatException.class, () -> parseDouble("-"));
+    }
+
+    private static void assertParseDouble(String value) {
+        assertEquals(Double.parseDouble(value), parseDouble(value), value);
+    }
+
+    private static double parseDouble(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return CsvPriceParser.parseDouble(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static int epochDay(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
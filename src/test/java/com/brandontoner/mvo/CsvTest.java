@@ -0,0 +1,62 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CsvTest {
+    private static final String NEWLINE = System.lineSeparator();
+    private final Ticker[] tickers = {new Ticker("C", Map.of()), new Ticker("A", Map.of()), new Ticker("B", Map.of())};
+
+    @Test
+    void writeCsv_sortsRowsAndSkipsUnheldTickers() throws IOException {
+        StringBuilder output = new StringBuilder();
+
+        Csv.writeCsv(List.of(new Portfolio(tickers, new int[] {2, 0, 0}, 2.5, 0.25),
+                             new Portfolio(tickers, new int[] {1, 3, 0}, 1, 0.5)), output);
+
+        assertEquals("\"A\",\"C\",\"mean\",\"variance\"" + NEWLINE
+                     + "\"3\",\"1\",\"1.0\",\"0.5\"" + NEWLINE
+                     + "\"0\",\"2\",\"2.5\",\"0.25\"" + NEWLINE,
+                     output.toString());
+    }
+
+    @Test
+    void writeCsv_frontier_keepsOrder() throws IOException {
+        MeanVarianceSet frontier = new MeanVarianceSet();
+        frontier.add(new Portfolio(tickers, new int[] {0, 0, 4}, 3, 3));
+        frontier.add(new Portfolio(tickers, new int[] {0, 1, 1}, 1, 1));
+        StringBuilder output = new StringBuilder();
+
+        Csv.writeCsv(frontier, output);
+
+        assertEquals("\"A\",\"B\",\"mean\",\"variance\"" + NEWLINE
+                     + "\"1\",\"1\",\"1.0\",\"1.0\"" + NEWLINE
+                     + "\"0\",\"4\",\"3.0\",\"3.0\"" + NEWLINE,
+                     output.toString());
+    }
+
+    @Test
+    void writeCsv_differentTickerArrays() throws IOException {
+        Ticker[] other = {new Ticker("D", Map.of()), tickers[1]};
+        StringBuilder output = new StringBuilder();
+
+        Csv.writeCsv(List.of(new Portfolio(tickers, new int[] {0, 1, 0}, 1, 1),
+                             new Portfolio(other, new int[] {5, 6}, 2, 2)), output);
+
+        assertEquals("\"A\",\"D\",\"mean\",\"variance\"" + NEWLINE
+                     + "\"1\",\"0\",\"1.0\",\"1.0\"" + NEWLINE
+                     + "\"6\",\"5\",\"2.0\",\"2.0\"" + NEWLINE,
+                     output.toString());
+    }
+
+    @Test
+    void writeCsv_empty() throws IOException {
+        StringBuilder output = new StringBuilder();
+        Csv.writeCsv(List.of(), output);
+        assertEquals("\"mean\",\"variance\"" + NEWLINE, output.toString());
+    }
+}
@@ -0,0 +1,113 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileTickerProviderTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    @TempDir
+    Path csvPath;
+
+    @Test
+    void get_intersectsDates() throws IOException {
+        writeCsv("BBB", TODAY.minusYears(2), 1, TODAY.minusDays(3), 2, TODAY.minusDays(2), 3, TODAY.minusDays(1), 4);
+        writeCsv("AAA", TODAY.minusDays(3), 5, TODAY.minusDays(1), 6);
+        writeCsv("CCC", TODAY.minusDays(4), 7, TODAY.minusDays(3), 8, TODAY.minusDays(1), 9);
+        Files.writeString(csvPath.resolve("notes.txt"), "not a ticker");
+
+        List<Ticker> tickers = new FileTickerProvider(csvPath).get();
+
+        assertEquals(List.of("AAA", "BBB", "CCC"), tickers.stream().map(Ticker::getName).toList());
+        assertArrayEquals(new double[] {5, 6}, tickers.get(0).getClosingPricesArray());
+        assertArrayEquals(new double[] {2, 4}, tickers.get(1).getClosingPricesArray());
+        assertArrayEquals(new double[] {8, 9}, tickers.get(2).getClosingPricesArray());
+        assertEquals(List.of(TODAY.minusDays(3), TODAY.minusDays(1)),
+                     List.copyOf(tickers.get(2).getClosingPrices().keySet()));
+    }
+
+    @Test
+    void get_reusesPriceStoreForUnchangedFiles() throws IOException {
+        writeCsv("AAA", TODAY.minusDays(3), 1, TODAY.minusDays(1), 2);
+        writeCsv("BBB", TODAY.minusDays(3), 3, TODAY.minusDays(1), 4);
+        List<Path> mapped = new ArrayList<>();
+        FileTickerProvider provider = new FileTickerProvider(csvPath) {
+            @Override
+            protected ByteBuffer map(Path file) {
+                mapped.add(file.getFileName());
+                return super.map(file);
+            }
+        };
+        final List<Ticker> first = provider.get();
+        assertEquals(2, mapped.size());
+
+        mapped.clear();
+        List<Ticker> second = provider.get();
+        assertEquals(List.of(), mapped);
+        assertArrayEquals(first.get(1).getClosingPricesArray(), second.get(1).getClosingPricesArray());
+
+        writeCsv("BBB", TODAY.minusDays(3), 3, TODAY.minusDays(1), 5);
+        Files.setLastModifiedTime(csvPath.resolve("BBB.csv"), FileTime.fromMillis(0));
+        List<Ticker> third = provider.get();
+        assertEquals(List.of(Path.of("BBB.csv")), mapped);
+        assertArrayEquals(new double[] {3, 5}, third.get(1).getClosingPricesArray());
+    }
+
+    @Test
+    void intersect() {
+        assertArrayEquals(new int[] {3, 9},
+                          FileTickerProvider.intersect(List.of(new int[] {1, 3, 5, 7, 9, 11},
+                                                               new int[] {3, 9, 12},
+                                                               new int[] {0, 2, 3, 4, 6, 8, 9, 10, 11, 12})));
+        assertArrayEquals(new int[0], FileTickerProvider.intersect(List.of(new int[] {1, 2}, new int[] {3, 4})));
+        assertArrayEquals(new int[0], FileTickerProvider.intersect(List.of()));
+        assertArrayEquals(new int[] {1, 2}, FileTickerProvider.intersect(List.of(new int[] {1, 2})));
+    }
+
+    @Test
+    void intersect_matchesSetIntersection() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int trial = 0; trial < 100; trial++) {
+            List<int[]> arrays = new ArrayList<>();
+            Set<Integer> expected = null;
+            for (int i = random.nextInt(1, 6); i > 0; i--) {
+                int[] array = random.ints(random.nextInt(200), 0, 300).sorted().distinct().toArray();
+                arrays.add(array);
+                Set<Integer> values = Arrays.stream(array).boxed().collect(Collectors.toCollection(TreeSet::new));
+                if (expected == null) {
+                    expected = values;
+                } else {
+                    expected.retainAll(values);
+                }
+            }
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+                              FileTickerProvider.intersect(arrays));
+        }
+    }
+
+    /**
+     * Writes a CSV of alternating dates and closing prices.
+     */
+    private void writeCsv(String name, Object... datesAndCloses) throws IOException {
+        StringBuilder csv = new StringBuilder("Date,Open,High,Low,Close,Adj Close,Volume\n");
+        for (int i = 0; i < datesAndCloses.length; i += 2) {
+            csv.append("%s,0,0,0,%s,0,0\n".formatted(datesAndCloses[i], datesAndCloses[i + 1]));
+        }
+        Files.writeString(csvPath.resolve(name + ".csv"), csv);
+    }
+}
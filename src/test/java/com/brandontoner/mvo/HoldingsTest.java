@@ -0,0 +1,65 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HoldingsTest {
+    @Test
+    void of_counts() {
+        Holdings holdings = Holdings.of(new int[] {0, 3, 0, 0, 7, 1});
+
+        assertEquals(3, holdings.size());
+        assertEquals(1, holdings.index(0));
+        assertEquals(3, holdings.count(0));
+        assertEquals(5, holdings.index(2));
+        assertEquals(7, holdings.countOf(4));
+        assertEquals(0, holdings.countOf(3));
+        assertArrayEquals(new int[] {0, 3, 0, 0, 7, 1}, holdings.toCounts(6));
+        assertEquals(0, Holdings.of(new int[4]).size());
+    }
+
+    @Test
+    void of_pairs_sortsSumsAndDropsZeros() {
+        Holdings holdings = Holdings.of(new int[] {4, 1, 4, 2, 9}, new int[] {2, 5, 3, 0, 1}, 4);
+
+        assertArrayEquals(new int[] {0, 5, 0, 0, 5}, holdings.toCounts(5));
+        assertEquals(Holdings.of(new int[] {0, 5, 0, 0, 5}), holdings);
+        assertEquals(0, Holdings.of(new int[] {1, 1}, new int[] {2, -2}, 2).size());
+    }
+
+    @Test
+    void move() {
+        Holdings holdings = Holdings.of(new int[] {0, 3, 0, 7, 1, 0});
+
+        assertEquals(Holdings.of(new int[] {0, 1, 0, 7, 1, 2}), holdings.move(1, 5, 2));
+        assertEquals(Holdings.of(new int[] {3, 0, 0, 7, 1, 0}), holdings.move(1, 0, 3));
+        assertEquals(Holdings.of(new int[] {0, 3, 0, 8, 0, 0}), holdings.move(4, 3, 1));
+        assertEquals(Holdings.of(new int[] {0, 3, 4, 3, 1, 0}), holdings.move(3, 2, 4));
+        assertEquals(holdings, holdings.move(1, 3, 2).move(3, 1, 2));
+    }
+
+    @Test
+    void move_moreThanHeld_throws() {
+        Holdings holdings = Holdings.of(new int[] {1, 0});
+
+        assertThrows(IllegalArgumentException.class, () -> holdings.move(0, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> holdings.move(1, 0, 1));
+    }
+
+    @Test
+    void portfolio_sameCountsEitherWay() {
+        Ticker[] tickers = {new Ticker("a", Map.of()), new Ticker("b", Map.of())};
+        Portfolio dense = new Portfolio(tickers, new int[] {0, 4}, 1, 2);
+        Portfolio sparse = new Portfolio(tickers, Holdings.of(new int[] {0, 4}), 1, 2);
+
+        assertEquals(dense, sparse);
+        assertEquals(dense.hashCode(), sparse.hashCode());
+        assertArrayEquals(dense.counts(), sparse.counts());
+        assertEquals(dense.holdings(), sparse.holdings());
+        assertEquals(dense.countsMap(), sparse.countsMap());
+    }
+}
@@ -0,0 +1,189 @@
+package com.brandontoner.mvo;
+
+import static com.brandontoner.mvo.TestFixtures.createTicker;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.ion.system.IonSystemBuilder;
+
+class IonSerializerTest {
+    private final Ticker[] tickers = {createTicker("a"), createTicker("b"), createTicker("c")};
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void writeTo_load_roundTrips() throws IOException {
+        MeanVarianceSet frontier = randomFrontier(200);
+        newSerializer().writeTo(frontier);
+
+        assertEquals(frontier, newSerializer().load(tickers));
+    }
+
+    @Test
+    void writeTo_appendsChangesToJournal() throws IOException {
+        IonSerializer serializer = newSerializer();
+        MeanVarianceSet frontier = randomFrontier(200);
+        serializer.writeTo(frontier);
+        long snapshotSize = Files.size(outputDir.resolve("cache.ion"));
+
+        for (int i = 0; i < 3; i++) {
+            frontier.add(randomPortfolio());
+            frontier.remove(frontier.get(0));
+            serializer.writeTo(frontier);
+        }
+
+        assertEquals(snapshotSize, Files.size(outputDir.resolve("cache.ion")));
+        assertTrue(Files.size(outputDir.resolve("cache.journal.ion")) < snapshotSize);
+        assertEquals(frontier, newSerializer().load(tickers));
+    }
+
+    @Test
+    void writeTo_journalLargerThanSnapshot_compacts() throws IOException {
+        IonSerializer serializer = newSerializer();
+        MeanVarianceSet frontier = new MeanVarianceSet();
+        addNew(frontier);
+        serializer.writeTo(frontier);
+        final long snapshotSize = Files.size(outputDir.resolve("cache.ion"));
+        for (int i = 0; i < 20; i++) {
+            addNew(frontier);
+            serializer.writeTo(frontier);
+        }
+
+        assertTrue(Files.size(outputDir.resolve("cache.ion")) > snapshotSize);
+        assertEquals(frontier, newSerializer().load(tickers));
+    }
+
+    @Test
+    void load_truncatedJournal_ignoresTail() throws IOException {
+        IonSerializer serializer = newSerializer();
+        MeanVarianceSet frontier = randomFrontier(50);
+        serializer.writeTo(frontier);
+        addNew(frontier);
+        serializer.writeTo(frontier);
+        final MeanVarianceSet expected = new MeanVarianceSet(frontier);
+        Path journal = outputDir.resolve("cache.journal.ion");
+        final long validSize = Files.size(journal);
+
+        addNew(frontier);
+        addNew(frontier);
+        serializer.writeTo(frontier);
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, (int) (validSize + bytes.length) / 2));
+
+        assertEquals(expected, newSerializer().load(tickers));
+    }
+
+    @Test
+    void writeTo_afterTornAppend_overwritesTornRecord() throws IOException {
+        IonSerializer serializer = newSerializer();
+        MeanVarianceSet frontier = randomFrontier(50);
+        serializer.writeTo(frontier);
+        addNew(frontier);
+        serializer.writeTo(frontier);
+        Path journal = outputDir.resolve("cache.journal.ion");
+        // an append which failed partway leaves a torn record behind
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, bytes.length / 2), StandardOpenOption.APPEND);
+
+        addNew(frontier);
+        serializer.writeTo(frontier);
+
+        assertEquals(frontier, newSerializer().load(tickers));
+    }
+
+    @Test
+    void load_samePrices_reusesStoredStatistics() throws IOException {
+        Portfolio stored = new Portfolio(tickers, new int[] {1, 2, 3}, 5, 0.5);
+        newSerializer().writeTo(List.of(stored));
+
+        assertEquals(List.of(stored), List.copyOf(newSerializer().load(tickers)));
+    }
+
+    @Test
+    void load_changedPrices_recomputesStatistics() throws IOException {
+        newSerializer().writeTo(List.of(new Portfolio(tickers, new int[] {1, 2, 3}, 5, 0.5)));
+        Ticker[] changed = {createTicker("a"), createTicker("b"), createTicker("c")};
+
+        assertEquals(List.of(PortfolioFactory.get(changed, new int[] {1, 2, 3})),
+                     List.copyOf(newSerializer().load(changed)));
+    }
+
+    @Test
+    void fingerprint() {
+        Ticker[] copy = {tickers[0], tickers[1], tickers[2]};
+        assertEquals(FrontierSerializer.fingerprint(tickers), FrontierSerializer.fingerprint(copy));
+        copy[2] = createTicker("c");
+        assertNotEquals(FrontierSerializer.fingerprint(tickers), FrontierSerializer.fingerprint(copy));
+        assertNotEquals(FrontierSerializer.fingerprint(tickers),
+                        FrontierSerializer.fingerprint(Arrays.copyOf(tickers, 2)));
+    }
+
+    @Test
+    void diff() {
+        Portfolio a = new Portfolio(tickers, new int[] {1, 0, 0}, 1, 1);
+        Portfolio b = new Portfolio(tickers, new int[] {0, 1, 0}, 2, 2);
+        Portfolio b2 = new Portfolio(tickers, new int[] {0, 0, 1}, 2, 1.5);
+        Portfolio c = new Portfolio(tickers, new int[] {1, 1, 0}, 3, 3);
+        List<Portfolio> added = new ArrayList<>();
+        List<Portfolio> removed = new ArrayList<>();
+
+        IonSerializer.diff(List.of(a, b), List.of(b2, c), added, removed);
+
+        assertEquals(List.of(b2, c), added);
+        assertEquals(List.of(a), removed);
+    }
+
+    @Test
+    void writeTo_moveFails_deletesTempFile() throws IOException {
+        // a non-empty directory in place of the cache cannot be replaced
+        Files.createFile(Files.createDirectory(outputDir.resolve("cache.ion")).resolve("blocker"));
+
+        assertThrows(IOException.class, () -> newSerializer().writeTo(randomFrontier(20)));
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertEquals(List.of(outputDir.resolve("cache.ion")), files.toList());
+        }
+    }
+
+    @Test
+    void load_missingFile_isEmpty() {
+        assertFalse(Files.exists(outputDir.resolve("cache.ion")));
+        assertTrue(newSerializer().load(tickers).isEmpty());
+    }
+
+    private IonSerializer newSerializer() {
+        return new IonSerializer(IonSystemBuilder.standard().build(), outputDir);
+    }
+
+    private MeanVarianceSet randomFrontier(int candidates) {
+        MeanVarianceSet frontier = new MeanVarianceSet();
+        for (int i = 0; i < candidates; i++) {
+            frontier.add(randomPortfolio());
+        }
+        return frontier;
+    }
+
+    private void addNew(MeanVarianceSet frontier) {
+        while (!frontier.add(randomPortfolio())) {
+            // try again
+        }
+    }
+
+    private Portfolio randomPortfolio() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return PortfolioFactory.get(tickers, new int[] {random.nextInt(100), random.nextInt(100), random.nextInt(100)});
+    }
+}
@@ -3,15 +3,27 @@ package com.brandontoner.mvo;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 class MeanVarianceSetTest {
     private final MeanVarianceSet set = new MeanVarianceSet();
 
+    @Test
+    void isDominated() {
+        set.add(createPortfolio(1, 10));
+        set.add(createPortfolio(3, 30));
+        assertTrue(set.isDominated(2, 30));
+        assertFalse(set.isDominated(2, 29));
+        assertTrue(set.isDominated(3, 30));
+        assertFalse(set.isDominated(4, 1_000));
+    }
+
     @Test
     void add_equalMean_equalVariance() {
         Portfolio p1 = createPortfolio(0, 0);
@@ -58,6 +70,16 @@ class MeanVarianceSetTest {
         assertContents(set, p2);
     }
 
+    @Test
+    void add_equalMean_lowerVarianceThanMultiple() {
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(set.add(createPortfolio(i, i)));
+        }
+        Portfolio p1 = createPortfolio(9, 0);
+        assertTrue(set.add(p1));
+        assertContents(set, p1);
+    }
+
     @Test
     void add_higherMean_lowerVariance() {
         Portfolio p1 = createPortfolio(0, 1);
@@ -104,6 +126,60 @@ class MeanVarianceSetTest {
         assertContents(set, p2, p1);
     }
 
+    @Test
+    void merge_matchesAddAll() {
+        Random random = new Random(1234);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            MeanVarianceSet a = randomSet(random);
+            MeanVarianceSet b = randomSet(random);
+            MeanVarianceSet expected = new MeanVarianceSet(a);
+            expected.addAll(b);
+
+            final List<Portfolio> added = a.merge(b);
+
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(a));
+            List<Portfolio> expectedAdded = new ArrayList<>(b);
+            expectedAdded.retainAll(a);
+            expectedAdded.removeIf(p -> !containsIdentity(a, p));
+            assertEquals(expectedAdded, added);
+        }
+    }
+
+    @Test
+    void merge_equalPortfolio_keepsThis() {
+        Portfolio p1 = createPortfolio(0, 0);
+        Portfolio p2 = createPortfolio(0, 0);
+        set.add(p1);
+        assertEquals(List.of(), set.merge(new MeanVarianceSet(List.of(p2))));
+        assertSame(p1, set.get(0));
+    }
+
+    @Test
+    void merge_equalMean_lowerVariance() {
+        Portfolio p1 = createPortfolio(0, 1);
+        Portfolio p2 = createPortfolio(0, 0);
+        set.add(p1);
+        assertEquals(List.of(p2), set.merge(new MeanVarianceSet(List.of(p2))));
+        assertContents(set, p2);
+    }
+
+    private static MeanVarianceSet randomSet(Random random) {
+        MeanVarianceSet output = new MeanVarianceSet();
+        for (int i = 0; i < 100; i++) {
+            output.add(createPortfolio(random.nextInt(100), random.nextInt(100)));
+        }
+        return output;
+    }
+
+    private static boolean containsIdentity(Iterable<Portfolio> portfolios, Portfolio portfolio) {
+        for (Portfolio p : portfolios) {
+            if (p == portfolio) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void assertContents(MeanVarianceSet set, Portfolio... expected) {
         assertEquals(List.of(expected), new ArrayList<>(set));
 
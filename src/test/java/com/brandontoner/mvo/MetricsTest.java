@@ -0,0 +1,87 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+    private final Metrics metrics = new Metrics();
+
+    @Test
+    void writePrometheus() throws IOException {
+        metrics.counter("mvo_candidates_total", "phase", "random", "Candidates").add(3);
+        metrics.counter("mvo_candidates_total", "phase", "endgame", "Candidates").increment();
+        metrics.counter("mvo_busy_seconds_total", "", "", "Busy", 1e-9).add(1_500_000_000);
+        metrics.gauge("mvo_frontier_size", "Frontier size", () -> 42);
+        Metrics.Histogram histogram = metrics.histogram("mvo_merge_seconds", "Merge time", 0.1, 1);
+        histogram.observe(0.05);
+        histogram.observe(0.5);
+        histogram.observe(5);
+        metrics.histogram("mvo_write_seconds", "format", "ion", "Write time", 1).observe(0.5);
+        StringBuilder output = new StringBuilder();
+
+        metrics.writePrometheus(output);
+
+        assertEquals("""
+                     # HELP mvo_busy_seconds_total Busy
+                     # TYPE mvo_busy_seconds_total counter
+                     mvo_busy_seconds_total 1.5
+                     # HELP mvo_candidates_total Candidates
+                     # TYPE mvo_candidates_total counter
+                     mvo_candidates_total{phase="endgame"} 1
+                     mvo_candidates_total{phase="random"} 3
+                     # HELP mvo_frontier_size Frontier size
+                     # TYPE mvo_frontier_size gauge
+                     mvo_frontier_size 42
+                     # HELP mvo_merge_seconds Merge time
+                     # TYPE mvo_merge_seconds histogram
+                     mvo_merge_seconds_bucket{le="0.1"} 1
+                     mvo_merge_seconds_bucket{le="1"} 2
+                     mvo_merge_seconds_bucket{le="+Inf"} 3
+                     mvo_merge_seconds_sum 5.55
+                     mvo_merge_seconds_count 3
+                     # HELP mvo_write_seconds Write time
+                     # TYPE mvo_write_seconds histogram
+                     mvo_write_seconds_bucket{format="ion",le="1"} 1
+                     mvo_write_seconds_bucket{format="ion",le="+Inf"} 1
+                     mvo_write_seconds_sum{format="ion"} 0.5
+                     mvo_write_seconds_count{format="ion"} 1
+                     """, output.toString());
+    }
+
+    @Test
+    void counter_sameSeries_isShared() {
+        assertSame(metrics.counter("a_total", "help"), metrics.counter("a_total", "help"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.histogram("a_total", "help"));
+    }
+
+    @Test
+    void exporter_servesHttpAndJmx() throws Exception {
+        metrics.counter("mvo_test_total", "Test").add(7);
+        try (MetricsExporter exporter = new MetricsExporter(metrics, 0)) {
+            exporter.start();
+
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:%s/metrics".formatted(exporter.port())))
+                               .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("mvo_test_total 7\n"));
+
+            Object value = ManagementFactory.getPlatformMBeanServer()
+                                            .getAttribute(new ObjectName("com.brandontoner.mvo:type=Metrics"),
+                                                          "mvo_test_total");
+            assertEquals(7.0, value);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.brandontoner.mvo;
+
+import static com.brandontoner.mvo.TestFixtures.createTicker;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MoveEvaluatorTest {
+    private final Ticker[] tickers = {createTicker("a"), createTicker("b"), createTicker("c")};
+
+    @Test
+    void getMeanAndVariance_matchesPortfolioFactory() {
+        int[] counts = {5, 3, 0};
+        MoveEvaluator evaluator = MoveEvaluator.forParent(tickers, counts);
+        double[] meanAndVariance = new double[2];
+        for (int k = 1; k <= counts[0]; k++) {
+            evaluator.getMeanAndVariance(0, 2, k, meanAndVariance);
+            Portfolio expected = PortfolioFactory.get(tickers, new int[] {5 - k, 3, k});
+            assertEquals(expected.mean(), meanAndVariance[0], 1e-12);
+            assertEquals(expected.variance(), meanAndVariance[1], 1e-12);
+        }
+    }
+
+    @Test
+    void forParent_holdingsMatchesCounts() {
+        int[] counts = {5, 0, 2};
+        double[] fromCounts = new double[2];
+        double[] fromHoldings = new double[2];
+        MoveEvaluator.forParent(tickers, counts).getMeanAndVariance(0, 1, 3, fromCounts);
+        MoveEvaluator.forParent(tickers, Holdings.of(counts)).getMeanAndVariance(0, 1, 3, fromHoldings);
+        assertArrayEquals(fromCounts, fromHoldings, 1e-15);
+        assertEquals(PortfolioFactory.get(tickers, counts), PortfolioFactory.get(tickers, Holdings.of(counts)));
+    }
+
+
+    @Test
+    void getAll_matchesGet() {
+        List<Holdings> holdings = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            holdings.add(Holdings.of(new int[] {1 + i % 4, i % 3, 1 + i % 5}));
+        }
+        List<Portfolio> portfolios = PortfolioFactory.getAll(tickers, holdings);
+        assertEquals(holdings.size(), portfolios.size());
+        for (int i = 0; i < holdings.size(); i++) {
+            Portfolio expected = PortfolioFactory.get(tickers, holdings.get(i));
+            assertEquals(expected.holdings(), portfolios.get(i).holdings());
+            assertEquals(expected.mean(), portfolios.get(i).mean(), 1e-12);
+            assertEquals(expected.variance(), portfolios.get(i).variance(), 1e-12);
+        }
+    }
+
+    @Test
+    void getMeanAndVariance_zeroMoveIsParent() {
+        int[] counts = {1, 2, 3};
+        double[] meanAndVariance = new double[2];
+        MoveEvaluator.forParent(tickers, counts).getMeanAndVariance(1, 0, 0, meanAndVariance);
+        Portfolio expected = PortfolioFactory.get(tickers, counts);
+        assertEquals(expected.mean(), meanAndVariance[0], 1e-12);
+        assertEquals(expected.variance(), meanAndVariance[1], 1e-12);
+    }
+}
@@ -0,0 +1,54 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PriceStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void write_open_roundTrips() throws IOException {
+        PriceSeries a = new PriceSeries("A", new int[] {1, 2, 5}, new double[] {1.5, 2.5, 3.5});
+        PriceSeries b = new PriceSeries("B", new int[0], new double[0]);
+        Path path = directory.resolve("prices.bin");
+        PriceStore.write(path, List.of(new PriceStore.Entry(a, 100, 200), new PriceStore.Entry(b, 300, 400)));
+
+        PriceStore store = PriceStore.open(path);
+
+        assertEquals(2, store.size());
+        assertEquals(a, store.get("A", 100, 200));
+        assertEquals(b, store.get("B", 300, 400));
+        assertNull(store.get("A", 101, 200));
+        assertNull(store.get("A", 100, 201));
+        assertNull(store.get("C", 100, 200));
+    }
+
+    @Test
+    void write_whileOpen_replacesFile() throws IOException {
+        PriceSeries a = new PriceSeries("A", new int[] {1, 2}, new double[] {1.5, 2.5});
+        Path path = directory.resolve("prices.bin");
+        PriceStore.write(path, List.of(new PriceStore.Entry(a, 100, 200)));
+        PriceStore store = PriceStore.open(path);
+
+        PriceStore.write(path, List.of());
+
+        assertEquals(a, store.get("A", 100, 200));
+        assertEquals(0, PriceStore.open(path).size());
+    }
+
+    @Test
+    void open_missingOrCorrupt_isEmpty() throws IOException {
+        Path path = directory.resolve("prices.bin");
+        assertEquals(0, PriceStore.open(path).size());
+        Files.writeString(path, "garbage");
+        assertEquals(0, PriceStore.open(path).size());
+    }
+}
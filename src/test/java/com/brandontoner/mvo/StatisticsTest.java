@@ -1,5 +1,6 @@
 package com.brandontoner.mvo;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.concurrent.ThreadLocalRandom;
@@ -21,6 +22,50 @@ class StatisticsTest {
         assertEquals(var, Statistics.variance(random, mean), 0.0000001);
     }
 
+    @Test
+    void returnsMeanAndVariance() {
+        double[] values = randomValues(253);
+        double[] expected = expectedReturnsMeanAndVariance(values);
+        double[] vector = new double[2];
+        Statistics.returnsMeanAndVarianceVector(values, vector);
+        assertArrayEquals(expected, vector, 1e-12);
+        double[] scalar = new double[2];
+        Statistics.returnsMeanAndVarianceScalar(values, scalar);
+        assertArrayEquals(expected, scalar, 1e-12);
+    }
+
+    @Test
+    void returnsMeanAndVariance_delta() {
+        double[] base = randomValues(253);
+        double[] delta = randomDoubles(253);
+        double k = 3;
+        double[] values = new double[base.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = base[i] + k * delta[i];
+        }
+        double[] expected = expectedReturnsMeanAndVariance(values);
+        double[] vector = new double[2];
+        Statistics.returnsMeanAndVarianceVector(base, delta, k, vector);
+        assertArrayEquals(expected, vector, 1e-12);
+        double[] scalar = new double[2];
+        Statistics.returnsMeanAndVarianceScalar(base, delta, k, scalar);
+        assertArrayEquals(expected, scalar, 1e-12);
+    }
+
+
+    private static double[] expectedReturnsMeanAndVariance(double[] values) {
+        double[] returns = new double[values.length - 1];
+        for (int i = 0; i < returns.length; i++) {
+            returns[i] = values[i + 1] / values[i];
+        }
+        double mean = Statistics.mean(returns);
+        return new double[] {mean, Statistics.variance(returns, mean)};
+    }
+
+    private double[] randomValues(int n) {
+        return ThreadLocalRandom.current().doubles(n, 90, 110).toArray();
+    }
+
     private double[] randomDoubles(int n) {
         return ThreadLocalRandom.current().doubles(n).toArray();
     }
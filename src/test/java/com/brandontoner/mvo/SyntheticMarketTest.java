@@ -0,0 +1,90 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SyntheticMarketTest {
+    private static final LocalDate END_DATE = LocalDate.now();
+    @TempDir
+    Path dir;
+
+    @Test
+    void write_readableByFileTickerProvider() throws IOException {
+        SyntheticMarket.write(dir, 30, 200, 7, END_DATE);
+
+        List<Ticker> tickers = new FileTickerProvider(dir).get();
+
+        assertEquals(30, tickers.size());
+        assertEquals("A", tickers.get(0).getName());
+        for (Ticker ticker : tickers) {
+            assertEquals(200, ticker.getClosingPricesArray().length);
+        }
+        // the shared market factor correlates every pair on average
+        double correlation = 0;
+        int pairs = 0;
+        for (int i = 0; i < tickers.size(); i++) {
+            for (int j = i + 1; j < tickers.size(); j++) {
+                correlation += correlation(returns(tickers.get(i)), returns(tickers.get(j)));
+                pairs++;
+            }
+        }
+        assertTrue(correlation / pairs > 0.1, "mean correlation " + correlation / pairs);
+    }
+
+    @Test
+    void write_sameSeed_sameFiles() throws IOException {
+        SyntheticMarket.write(dir.resolve("a"), 3, 10, 7, END_DATE);
+        SyntheticMarket.write(dir.resolve("b"), 3, 10, 7, END_DATE);
+        SyntheticMarket.write(dir.resolve("c"), 3, 10, 8, END_DATE);
+
+        for (String name : List.of("A.csv", "B.csv", "C.csv")) {
+            assertEquals(Files.readString(dir.resolve("a").resolve(name)),
+                         Files.readString(dir.resolve("b").resolve(name)));
+            assertNotEquals(Files.readString(dir.resolve("a").resolve(name)),
+                            Files.readString(dir.resolve("c").resolve(name)));
+        }
+    }
+
+    @Test
+    void tickerName() {
+        assertEquals("A", SyntheticMarket.tickerName(0));
+        assertEquals("Z", SyntheticMarket.tickerName(25));
+        assertEquals("AA", SyntheticMarket.tickerName(26));
+        assertEquals("AZ", SyntheticMarket.tickerName(51));
+        assertEquals("BA", SyntheticMarket.tickerName(52));
+        assertEquals("ZZ", SyntheticMarket.tickerName(701));
+        assertEquals("AAA", SyntheticMarket.tickerName(702));
+    }
+
+    private static double[] returns(Ticker ticker) {
+        double[] prices = ticker.getClosingPricesArray();
+        double[] returns = new double[prices.length - 1];
+        for (int i = 0; i < returns.length; i++) {
+            returns[i] = Math.log(prices[i + 1] / prices[i]);
+        }
+        return returns;
+    }
+
+    private static double correlation(double[] a, double[] b) {
+        double meanA = Statistics.mean(a);
+        double meanB = Statistics.mean(b);
+        double covariance = 0;
+        double varianceA = 0;
+        double varianceB = 0;
+        for (int i = 0; i < a.length; i++) {
+            covariance += (a[i] - meanA) * (b[i] - meanB);
+            varianceA += (a[i] - meanA) * (a[i] - meanA);
+            varianceB += (b[i] - meanB) * (b[i] - meanB);
+        }
+        return covariance / Math.sqrt(varianceA * varianceB);
+    }
+}
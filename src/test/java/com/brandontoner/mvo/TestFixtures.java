@@ -0,0 +1,30 @@
+package com.brandontoner.mvo;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Inputs shared by the tests.
+ */
+final class TestFixtures {
+    private TestFixtures() {
+        // noop
+    }
+
+    /**
+     * Creates a ticker with random prices between 10 and 11 on 100 consecutive days from 2022-01-01.
+     *
+     * @param name ticker name
+     * @return ticker
+     */
+    static Ticker createTicker(String name) {
+        Map<LocalDate, Double> closingPrices = new TreeMap<>();
+        LocalDate date = LocalDate.of(2022, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            closingPrices.put(date.plusDays(i), 10 + ThreadLocalRandom.current().nextDouble());
+        }
+        return new Ticker(name, closingPrices);
+    }
+}
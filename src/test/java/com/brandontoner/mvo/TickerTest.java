@@ -1,9 +1,12 @@
 package com.brandontoner.mvo;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.LocalDate;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
@@ -34,4 +37,22 @@ class TickerTest {
         map.put(LocalDate.now(), Math.PI);
         assertEquals(new TreeMap<>(), ticker.getClosingPrices());
     }
+
+    @Test
+    void sharedPriceMatrix() {
+        SortedMap<LocalDate, Double> map1 = new TreeMap<>(Map.of(LocalDate.of(2022, 1, 1), 1.0,
+                                                                 LocalDate.of(2022, 1, 2), 2.0));
+        SortedMap<LocalDate, Double> map2 = new TreeMap<>(Map.of(LocalDate.of(2022, 1, 1), 3.0,
+                                                                 LocalDate.of(2022, 1, 2), 4.0));
+        PriceMatrix priceMatrix = new PriceMatrix(2, 2);
+
+        Ticker ticker1 = new Ticker("a", map1, priceMatrix, 0);
+        Ticker ticker2 = new Ticker("b", map2, priceMatrix, 1);
+
+        assertSame(priceMatrix, ticker1.getPriceMatrix());
+        assertSame(priceMatrix, ticker2.getPriceMatrix());
+        assertArrayEquals(new double[] {1, 2, 3, 4}, priceMatrix.prices());
+        assertArrayEquals(new double[] {3, 4}, ticker2.getClosingPricesArray());
+        assertEquals(2, ticker2.getOffset());
+    }
 }
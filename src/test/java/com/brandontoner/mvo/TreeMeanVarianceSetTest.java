@@ -0,0 +1,118 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TreeMeanVarianceSetTest {
+    private final TreeMeanVarianceSet set = new TreeMeanVarianceSet();
+
+    @Test
+    void add_equalMean_equalVariance() {
+        Portfolio p1 = createPortfolio(0, 0);
+        assertTrue(set.add(p1));
+        assertFalse(set.add(createPortfolio(0, 0)));
+        assertContents(p1);
+    }
+
+    @Test
+    void add_higherMean_higherVariance() {
+        Portfolio p1 = createPortfolio(0, 0);
+        Portfolio p2 = createPortfolio(1, 1);
+        assertTrue(set.add(p2));
+        assertTrue(set.add(p1));
+        assertContents(p1, p2);
+    }
+
+    @Test
+    void isDominated() {
+        set.add(createPortfolio(1, 10));
+        set.add(createPortfolio(3, 30));
+        assertTrue(set.isDominated(2, 30));
+        assertFalse(set.isDominated(2, 29));
+        assertTrue(set.isDominated(3, 30));
+        assertFalse(set.isDominated(4, 1_000));
+    }
+
+    @Test
+    void add_higherMean_lowerVarianceThanMultiple() {
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(set.add(createPortfolio(i, i)));
+        }
+        Portfolio p1 = createPortfolio(10, 0);
+        assertTrue(set.add(p1));
+        assertContents(p1);
+    }
+
+    @Test
+    void add_middleDominatesRange() {
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(set.add(createPortfolio(i, i)));
+        }
+        Portfolio p1 = createPortfolio(5.5, 2.5);
+        assertTrue(set.add(p1));
+        assertContents(createPortfolio(0, 0),
+                       createPortfolio(1, 1),
+                       createPortfolio(2, 2),
+                       p1,
+                       createPortfolio(6, 6),
+                       createPortfolio(7, 7),
+                       createPortfolio(8, 8),
+                       createPortfolio(9, 9));
+    }
+
+    @Test
+    void add_matchesMeanVarianceSet() {
+        Random random = new Random(1234);
+        MeanVarianceSet expected = new MeanVarianceSet();
+        for (int i = 0; i < 10_000; i++) {
+            Portfolio portfolio = createPortfolio(random.nextInt(1000), random.nextInt(1000));
+            assertEquals(expected.add(portfolio), set.add(portfolio));
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        assertEquals(expected.hashCode(), set.hashCode());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), set.get(i));
+        }
+    }
+
+    @Test
+    void get_outOfBounds() {
+        set.add(createPortfolio(0, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.get(-1));
+    }
+
+    @Test
+    void remove() {
+        Portfolio p1 = createPortfolio(0, 0);
+        Portfolio p2 = createPortfolio(1, 1);
+        Portfolio p3 = createPortfolio(2, 2);
+        set.addAll(List.of(p1, p2, p3));
+        assertFalse(set.remove(createPortfolio(1, 2)));
+        assertTrue(set.remove(p2));
+        assertContents(p1, p3);
+        assertTrue(set.removeAll(List.of(p3)));
+        assertContents(p1);
+    }
+
+    private void assertContents(Portfolio... expected) {
+        assertEquals(List.of(expected), new ArrayList<>(set));
+        assertEquals(expected.length, set.size());
+        for (Portfolio portfolio : expected) {
+            assertTrue(set.contains(portfolio));
+        }
+        assertEquals(set, new TreeMeanVarianceSet(List.of(expected)));
+        assertEquals(new MeanVarianceSet(List.of(expected)).hashCode(), set.hashCode());
+    }
+
+    private static Portfolio createPortfolio(double mean, double variance) {
+        return new Portfolio(new Ticker[0], new int[0], mean, variance);
+    }
+}
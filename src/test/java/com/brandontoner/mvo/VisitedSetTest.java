@@ -0,0 +1,52 @@
+package com.brandontoner.mvo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VisitedSetTest {
+    private final VisitedSet set = new VisitedSet(10);
+
+    @Test
+    void move_matchesHash() {
+        int[] counts = {3, 0, 7, 1};
+        long hash = VisitedSet.hash(counts);
+        assertEquals(VisitedSet.hash(new int[] {1, 0, 9, 1}), VisitedSet.move(hash, 0, 2, 2));
+        assertEquals(VisitedSet.hash(new int[] {0, 3, 7, 1}), VisitedSet.move(hash, 0, 1, 3));
+        assertEquals(hash, VisitedSet.move(VisitedSet.move(hash, 3, 1, 1), 1, 3, 1));
+    }
+
+    @Test
+    void hash_holdingsMatchesCounts() {
+        int[] counts = {3, 0, 7, 1};
+        assertEquals(VisitedSet.hash(counts), VisitedSet.hash(Holdings.of(counts)));
+    }
+
+    @Test
+    void hash_differsPerTicker() {
+        assertNotEquals(VisitedSet.hash(new int[] {1, 0}), VisitedSet.hash(new int[] {0, 1}));
+    }
+
+    @Test
+    void checkAndAdd() {
+        assertFalse(set.checkAndAdd(1234));
+        assertTrue(set.checkAndAdd(1234));
+        assertFalse(set.checkAndAdd(5678));
+        assertEquals(1, set.hits());
+        assertEquals(2, set.misses());
+        assertEquals(1 / 3.0, set.hitRate(), 1e-9);
+    }
+
+    @Test
+    void checkAndAdd_full_evicts() {
+        for (int i = 0; i < 10_000; i++) {
+            set.checkAndAdd(i);
+        }
+        assertTrue(set.evictions() > 0);
+        assertEquals(10_000, set.misses() + set.hits());
+        assertTrue(set.checkAndAdd(9_999));
+    }
+}